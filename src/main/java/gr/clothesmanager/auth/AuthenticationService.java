@@ -5,6 +5,7 @@ import gr.clothesmanager.auth.dto.LoginRequest;
 import gr.clothesmanager.core.CustomUserDetailsService;
 import gr.clothesmanager.model.UserRole;
 import gr.clothesmanager.security.JwtService;
+import gr.clothesmanager.security.TokenVersionRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -27,6 +28,7 @@ public class AuthenticationService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final CustomUserDetailsService customUserDetailsService;
+    private final TokenVersionRegistry tokenVersionRegistry;
 
     public void changePassword(ChangePasswordRequest request) {
         User user = customUserDetailsService.getCurrentUser();
@@ -35,7 +37,9 @@ public class AuthenticationService {
             throw new IllegalArgumentException("Ο τρέχων κωδικός είναι λάθος");
         }
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        user.nextSecurityVersion();
         userRepository.save(user);
+        tokenVersionRegistry.evict(user.getId());
     }
 
     public String authenticateAndGenerateToken(LoginRequest loginRequest) {
@@ -44,10 +48,10 @@ public class AuthenticationService {
                     new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword())
             );
 
-            User user = userRepository.findByUsername(loginRequest.getUsername())
+            User user = userRepository.findByUsernameWithRoles(loginRequest.getUsername())
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
-            return jwtService.generateToken(user.getUsername());
+            return jwtService.generateToken(user);
         } catch (AuthenticationException e) {
             throw new RuntimeException("Invalid credentials");
         }
@@ -13,17 +13,22 @@ import java.util.Arrays;
 public class AuthorizationService {
 
     private final UserService userService;
+    private final CurrentUserContext currentUserContext;
 
     public void authorize(String username, String... allowedRoles) {
-        UserDTO userDTO;
-        userDTO = userService.findUserByUsername(username)
-                .orElseThrow(() -> new AccessDeniedException("User not found"));
+        boolean hasRole;
+        if (username != null && username.equals(currentUserContext.getUsername())) {
+            hasRole = currentUserContext.hasAnyRole(allowedRoles);
+        } else {
+            UserDTO userDTO = userService.findUserByUsername(username)
+                    .orElseThrow(() -> new AccessDeniedException("User not found"));
 
-        boolean hasRole = userDTO.getRoles().stream()
-                .map(role -> role.getName().toUpperCase())
-                .anyMatch(role -> Arrays.stream(allowedRoles)
-                        .map(String::toUpperCase)
-                        .anyMatch(role::equals));
+            hasRole = userDTO.getRoles().stream()
+                    .map(role -> role.getName().toUpperCase())
+                    .anyMatch(role -> Arrays.stream(allowedRoles)
+                            .map(String::toUpperCase)
+                            .anyMatch(role::equals));
+        }
 
         if (!hasRole) {
             throw new AccessDeniedException("Ο χρήστης δεν έχει τα απαιτούμενα δικαιώματα: " + String.join(", ", allowedRoles));
@@ -0,0 +1,103 @@
+package gr.clothesmanager.auth;
+
+import gr.clothesmanager.dto.UserDTO;
+import gr.clothesmanager.model.User;
+import gr.clothesmanager.model.UserRole;
+import gr.clothesmanager.repository.UserRepository;
+import gr.clothesmanager.security.JwtPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * The authenticated user of the current request, resolved once and shared by the services.
+ * Roles and store come from the JWT principal; the full user details are loaded at most once.
+ */
+@Component
+@RequestScope
+@RequiredArgsConstructor
+public class CurrentUserContext {
+
+    private final UserRepository userRepository;
+
+    private JwtPrincipal principal;
+    private UserDTO userDetails;
+
+    public JwtPrincipal getPrincipal() {
+        if (principal == null) {
+            principal = resolvePrincipal();
+        }
+        return principal;
+    }
+
+    public String getUsername() {
+        return getPrincipal().getUsername();
+    }
+
+    public Long getUserId() {
+        return getPrincipal().getId();
+    }
+
+    public Long getStoreId() {
+        return getPrincipal().getStoreId();
+    }
+
+    // the store a non-super-admin is limited to; a user without a store is refused,
+    // since a null store id means "every store" to the scoped queries
+    public Long requireScopedStoreId() {
+        Long storeId = getStoreId();
+        if (storeId == null) {
+            throw new AccessDeniedException("ACCESS_DENIED");
+        }
+        return storeId;
+    }
+
+    public boolean hasAnyRole(String... roles) {
+        return Arrays.stream(roles).anyMatch(getPrincipal()::hasRole);
+    }
+
+    public boolean isSuperAdmin() {
+        return hasAnyRole("SUPER_ADMIN");
+    }
+
+    public boolean isLocalAdmin() {
+        return hasAnyRole("LOCAL_ADMIN");
+    }
+
+    public UserDTO getUserDetails(Supplier<UserDTO> loader) {
+        if (userDetails == null) {
+            userDetails = loader.get();
+        }
+        return userDetails;
+    }
+
+    private JwtPrincipal resolvePrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            throw new AccessDeniedException("ACCESS_DENIED");
+        }
+
+        Object authenticated = authentication.getPrincipal();
+        if (authenticated instanceof JwtPrincipal jwtPrincipal) {
+            return jwtPrincipal;
+        }
+
+        // authenticated by other means (e.g. username/password), fall back to the database once
+        String username = authenticated instanceof UserDetails details ? details.getUsername() : authenticated.toString();
+        User user = userRepository.findByUsernameWithRoles(username)
+                .orElseThrow(() -> new AccessDeniedException("User not found"));
+        return new JwtPrincipal(
+                user.getId(),
+                user.getUsername(),
+                user.getStore() != null ? user.getStore().getId() : null,
+                user.getRoles().stream().map(UserRole::getName).toList()
+        );
+    }
+}
@@ -0,0 +1,37 @@
+package gr.clothesmanager.common;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Tells which constraint a DataIntegrityViolationException broke, so callers translate only the one
+ * they expect and let everything else surface as what it is. Hibernate reports the name of a broken
+ * unique key (MySQL: "for key 'materials.uk_...'"); foreign keys are recognised by their column.
+ */
+public final class ConstraintViolations {
+
+    private ConstraintViolations() {
+    }
+
+    public static boolean isUniqueKey(DataIntegrityViolationException ex, String name) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                String constraint = violation.getConstraintName();
+                return constraint.equalsIgnoreCase(name) || constraint.toLowerCase(Locale.ROOT).endsWith("." + name.toLowerCase(Locale.ROOT));
+            }
+        }
+        return message(ex).contains("'" + name + "'") || message(ex).contains("." + name + "'");
+    }
+
+    public static boolean isForeignKey(DataIntegrityViolationException ex, String column) {
+        String message = message(ex);
+        return message.contains("foreign key constraint fails") && message.contains("FOREIGN KEY (`" + column + "`)");
+    }
+
+    private static String message(DataIntegrityViolationException ex) {
+        String message = ex.getMostSpecificCause().getMessage();
+        return message != null ? message : "";
+    }
+}
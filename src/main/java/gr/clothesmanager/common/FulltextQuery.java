@@ -0,0 +1,26 @@
+package gr.clothesmanager.common;
+
+/**
+ * Turns a user search term into a boolean-mode phrase for the ngram full-text index.
+ * Terms shorter than the ngram token size (2) cannot be served by the index and return null,
+ * in which case callers fall back to LIKE.
+ */
+public final class FulltextQuery {
+
+    public static final int MIN_LENGTH = 2;
+
+    private FulltextQuery() {
+    }
+
+    public static String phrase(String term) {
+        if (term == null) {
+            return null;
+        }
+        // quotes would end the phrase, everything else is literal inside it
+        String cleaned = term.replace('"', ' ').trim();
+        if (cleaned.length() < MIN_LENGTH) {
+            return null;
+        }
+        return "\"" + cleaned + "\"";
+    }
+}
@@ -60,6 +60,17 @@ public class GlobalExceptionHandler {
         ));
     }
 
+    // 400 – Bulk order rejected, nothing was written; one entry per failing line
+    @ExceptionHandler(BulkOrderRejectedException.class)
+    public ResponseEntity<Map<String,Object>> handleBulkOrderRejected(BulkOrderRejectedException ex) {
+        return ResponseEntity.badRequest().body(Map.of(
+                "error", true,
+                "code", "INSUFFICIENT_STOCK",
+                "message", "Insufficient stock.",
+                "lines", ex.getLines()
+        ));
+    }
+
     // 409 – Size already exists
     @ExceptionHandler(SizeAlreadyExistsException.class)
     public ResponseEntity<Map<String,Object>> handleSizeAlreadyExists(SizeAlreadyExistsException ex) {
@@ -0,0 +1,33 @@
+package gr.clothesmanager.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination token: the (sort key, id) of the last row of the previous page.
+ */
+public record PageCursor(String sortKey, Long id) {
+
+    public static final PageCursor FIRST = new PageCursor(null, null);
+
+    public String encode() {
+        String raw = id + ":" + (sortKey != null ? sortKey : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // a blank token means "first page"
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            Long id = Long.valueOf(raw.substring(0, separator));
+            String sortKey = raw.substring(separator + 1);
+            return new PageCursor(sortKey.isEmpty() ? null : sortKey, id);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("INVALID_CURSOR");
+        }
+    }
+}
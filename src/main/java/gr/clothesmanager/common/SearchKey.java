@@ -0,0 +1,26 @@
+package gr.clothesmanager.common;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalized form of a material name used for searching and duplicate checks:
+ * lowercase, accents (tonos, dialytika) stripped and final sigma folded,
+ * so 'Μπλούζα', 'ΜΠΛΟΥΖΑ' and 'μπλουζα' all share the same key.
+ */
+public final class SearchKey {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private SearchKey() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(text.trim().toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").replace('ς', 'σ');
+    }
+}
@@ -1,10 +1,12 @@
 package gr.clothesmanager.controller;
 
-import gr.clothesmanager.core.enums.Status;
-import gr.clothesmanager.repository.*;
+import gr.clothesmanager.auth.AuthorizationService;
+import gr.clothesmanager.service.CacheStatisticsService;
+import gr.clothesmanager.service.DashboardCounters;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -16,23 +18,21 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class MainController {
 
-    private final UserRepository userRepository;
-    private final MaterialRepository materialRepository;
-    private final SizeRepository sizeRepository;
-    private final OrderRepository orderRepository;
-    private final StoreRepository storeRepository;
+    private final DashboardCounters dashboardCounters;
+    private final CacheStatisticsService cacheStatisticsService;
+    private final AuthorizationService authorizationService;
 
     @GetMapping("/dashboard")
     @Secured({"ROLE_USER", "ROLE_ADMIN"})
     public ResponseEntity<Map<String, Object>> getDashboardData() {
-        Map<String, Object> dashboardData = Map.of(
-                "user", userRepository.countActiveUsersForDashboard(Status.ACTIVE),
-                "materials", materialRepository.countMaterials(),
-                "sizes", sizeRepository.countSizes(),
-                "orders", orderRepository.countOrders(),
-                "stores", storeRepository.countStores()
-        );
+        return ResponseEntity.ok(dashboardCounters.snapshot());
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStatistics() {
+        String authenticatedUsername = SecurityContextHolder.getContext().getAuthentication().getName();
+        authorizationService.authorize(authenticatedUsername, "SUPER_ADMIN");
 
-        return ResponseEntity.ok(dashboardData);
+        return ResponseEntity.ok(cacheStatisticsService.secondLevelCacheStatistics());
     }
-}
\ No newline at end of file
+}
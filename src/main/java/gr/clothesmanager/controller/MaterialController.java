@@ -1,20 +1,29 @@
 package gr.clothesmanager.controller;
 
 import gr.clothesmanager.auth.AuthorizationService;
+import gr.clothesmanager.core.enums.ImportMode;
+import gr.clothesmanager.dto.BulkDistributionDTO;
+import gr.clothesmanager.dto.ImportReportDTO;
 import gr.clothesmanager.dto.MaterialDTO;
 import gr.clothesmanager.dto.MaterialDistributionDTO;
 import gr.clothesmanager.dto.PageResponse;
+import gr.clothesmanager.dto.StockLevelDTO;
+import gr.clothesmanager.service.MaterialImportService;
 import gr.clothesmanager.service.MaterialService;
 import gr.clothesmanager.service.exceptions.*;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -25,6 +34,7 @@ import java.util.Optional;
 public class MaterialController {
 
     private final MaterialService materialService;
+    private final MaterialImportService materialImportService;
     private final AuthorizationService authorizationService;
 
     @PostMapping
@@ -69,6 +79,21 @@ public class MaterialController {
         return ResponseEntity.noContent().build();
     }
 
+    // raw CSV or NDJSON body, streamed; rows are validated and written chunk by chunk
+    @PostMapping("/import")
+    public ResponseEntity<ImportReportDTO> importMaterials(
+            InputStream body,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "REPLACE") ImportMode mode,
+            @RequestParam(required = false) Integer chunkSize,
+            @RequestParam(required = false) Integer maxErrors) throws IOException {
+        String authenticatedUsername = SecurityContextHolder.getContext().getAuthentication().getName();
+        authorizationService.authorize(authenticatedUsername, "SUPER_ADMIN", "LOCAL_ADMIN");
+
+        ImportReportDTO report = materialImportService.importMaterials(body, format, mode, chunkSize, maxErrors);
+        return ResponseEntity.ok(report);
+    }
+
     @PostMapping("/distribute")
     public ResponseEntity<Map<String, Object>> distributeMaterial(@Valid @RequestBody MaterialDistributionDTO distributionDTO) throws StoreNotFoundException, MaterialNotFoundException {
         String authenticatedUsername = SecurityContextHolder.getContext().getAuthentication().getName();
@@ -81,12 +106,57 @@ public class MaterialController {
         ));
     }
 
+    @PostMapping("/distribute/bulk")
+    public ResponseEntity<Map<String, Object>> distributeMaterialBulk(@Valid @RequestBody BulkDistributionDTO distributionDTO) throws StoreNotFoundException, MaterialNotFoundException {
+        String authenticatedUsername = SecurityContextHolder.getContext().getAuthentication().getName();
+        authorizationService.authorize(authenticatedUsername, "SUPER_ADMIN");
+
+        List<MaterialDTO> result = materialService.distributeMaterialBulk(distributionDTO);
+        return ResponseEntity.ok(Map.of(
+                "message", "Material distributed successfully",
+                "targetMaterials", result
+        ));
+    }
+
+    // stock per material at the end of the given day, from the movement ledger
+    @GetMapping("/stock/as-of")
+    public ResponseEntity<List<StockLevelDTO>> stockAsOf(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) Long storeId) {
+        String authenticatedUsername = SecurityContextHolder.getContext().getAuthentication().getName();
+        authorizationService.authorize(authenticatedUsername, "SUPER_ADMIN", "LOCAL_ADMIN");
+
+        return ResponseEntity.ok(materialService.stockAsOf(date, storeId));
+    }
+
+    @PatchMapping("/{id}/striping")
+    public ResponseEntity<MaterialDTO> configureStriping(@PathVariable Long id, @RequestBody Map<String, Integer> payload) throws MaterialNotFoundException {
+        String authenticatedUsername = SecurityContextHolder.getContext().getAuthentication().getName();
+        authorizationService.authorize(authenticatedUsername, "SUPER_ADMIN");
+
+        Integer stripes = payload.get("stripes");
+        if (stripes == null) {
+            throw new IllegalArgumentException("Stripes field is required");
+        }
+
+        MaterialDTO result = materialService.configureStriping(id, stripes);
+        return ResponseEntity.ok(result);
+    }
+
     @GetMapping("/paginated")
     public ResponseEntity<PageResponse<MaterialDTO>> findMaterialsPaginated(
             @RequestParam(required = false) Long storeId,
             @RequestParam(required = false) String text,
             @RequestParam(required = false) Long sizeId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal,
             Pageable pageable) throws UserNotFoundException {
+        // keyset mode: pass cursor (empty for the first page) and follow "next"
+        if (cursor != null) {
+            return ResponseEntity.ok(materialService.findAfterCursorWithFilters(
+                    storeId, text, sizeId, cursor, pageable.getPageSize(), withTotal));
+        }
+
         Page<MaterialDTO> materialsPage = materialService.findAllPaginatedWithFilters(storeId, text, sizeId, pageable);
         return ResponseEntity.ok(PageResponse.from(materialsPage));
     }
@@ -95,7 +165,14 @@ public class MaterialController {
     public ResponseEntity<PageResponse<MaterialDTO>> findAllMaterials(
             @RequestParam(required = false) String text,
             @RequestParam(required = false) Long sizeId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal,
             Pageable pageable) throws UserNotFoundException {
+        if (cursor != null) {
+            return ResponseEntity.ok(materialService.findAfterCursorWithFilters(
+                    null, text, sizeId, cursor, pageable.getPageSize(), withTotal));
+        }
+
         Page<MaterialDTO> materialsPage = materialService.findAllPaginatedWithFilters(null, text, sizeId, pageable);
         return ResponseEntity.ok(PageResponse.from(materialsPage));
     }
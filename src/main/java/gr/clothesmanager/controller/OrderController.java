@@ -1,7 +1,9 @@
 package gr.clothesmanager.controller;
 
+import gr.clothesmanager.dto.BulkOrderDTO;
 import gr.clothesmanager.dto.OrderDTO;
 import gr.clothesmanager.dto.PageResponse;
+import gr.clothesmanager.service.OrderExportService;
 import gr.clothesmanager.service.OrderService;
 import gr.clothesmanager.service.exceptions.OrderNotFoundException;
 import gr.clothesmanager.service.exceptions.UserNotFoundException;
@@ -9,11 +11,17 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -22,6 +30,7 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
 
     @PostMapping
     public ResponseEntity<OrderDTO> save(@Valid @RequestBody OrderDTO orderDTO) throws UserNotFoundException {
@@ -29,6 +38,13 @@ public class OrderController {
         return ResponseEntity.status(HttpStatus.CREATED).body(savedOrder);
     }
 
+    // several lines in one transaction; rejected as a whole with per-line details if any line cannot be served
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkOrderDTO> saveBulk(@Valid @RequestBody BulkOrderDTO bulkOrderDTO) {
+        BulkOrderDTO savedOrder = orderService.saveBulk(bulkOrderDTO);
+        return ResponseEntity.status(HttpStatus.CREATED).body(savedOrder);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<OrderDTO> findById(@PathVariable Long id) throws OrderNotFoundException {
         OrderDTO order = orderService.findById(id);
@@ -42,6 +58,20 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    // streamed, for exports too large for GET /api/orders; from/to are inclusive (yyyy-MM-dd)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        StreamingResponseBody body = orderExportService.export(format, from, to);
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.parseMediaType("application/x-ndjson") : new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + (ndjson ? "ndjson" : "csv") + "\"")
+                .body(body);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<OrderDTO> updateOrder(@PathVariable Long id, @RequestBody OrderDTO orderDTO) throws OrderNotFoundException {
         OrderDTO updatedOrder = orderService.updateOrder(id, orderDTO);
@@ -59,8 +89,16 @@ public class OrderController {
             @RequestParam(required = false) Long storeId,
             @RequestParam(required = false) String materialText,
             @RequestParam(required = false) String sizeName,
-            @RequestParam int page,
-            @RequestParam int size) {
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        // keyset mode: pass cursor (empty for the first page) and follow "next"
+        if (cursor != null) {
+            return ResponseEntity.ok(orderService.findOrdersAfterCursor(
+                    storeId, materialText, sizeName, cursor, size, withTotal));
+        }
+
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         Page<OrderDTO> ordersPage = orderService.findOrdersPaginatedWithFilters(
                 username, storeId, materialText, sizeName, PageRequest.of(page, size));
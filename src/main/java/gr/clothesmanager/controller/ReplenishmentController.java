@@ -0,0 +1,60 @@
+package gr.clothesmanager.controller;
+
+import gr.clothesmanager.auth.AuthorizationService;
+import gr.clothesmanager.dto.ReplenishmentPlanDTO;
+import gr.clothesmanager.dto.StockLevelRuleDTO;
+import gr.clothesmanager.service.ReplenishmentService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/replenishment")
+@RequiredArgsConstructor
+public class ReplenishmentController {
+
+    private final ReplenishmentService replenishmentService;
+    private final AuthorizationService authorizationService;
+
+    @GetMapping("/rules")
+    public ResponseEntity<List<StockLevelRuleDTO>> findRules(@RequestParam Long storeId) {
+        authorize();
+        return ResponseEntity.ok(replenishmentService.findRules(storeId));
+    }
+
+    // creates or updates min/max levels, matched on (storeId, text, sizeId)
+    @PutMapping("/rules")
+    public ResponseEntity<List<StockLevelRuleDTO>> saveRules(@RequestBody List<StockLevelRuleDTO> rules) {
+        authorize();
+        return ResponseEntity.ok(replenishmentService.saveRules(rules));
+    }
+
+    @DeleteMapping("/rules/{id}")
+    public ResponseEntity<Void> deleteRule(@PathVariable Long id) {
+        authorize();
+        replenishmentService.deleteRule(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // proposed transfers only, nothing is moved
+    @PostMapping("/plan")
+    public ResponseEntity<ReplenishmentPlanDTO> plan() {
+        authorize();
+        return ResponseEntity.ok(replenishmentService.plan());
+    }
+
+    // plans against current stock and runs the transfers through the bulk distribution path
+    @PostMapping("/execute")
+    public ResponseEntity<ReplenishmentPlanDTO> execute() {
+        authorize();
+        return ResponseEntity.ok(replenishmentService.execute());
+    }
+
+    private void authorize() {
+        String authenticatedUsername = SecurityContextHolder.getContext().getAuthentication().getName();
+        authorizationService.authorize(authenticatedUsername, "SUPER_ADMIN");
+    }
+}
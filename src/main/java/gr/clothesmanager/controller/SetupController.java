@@ -1,6 +1,7 @@
 package gr.clothesmanager.controller;
 
 import gr.clothesmanager.auth.dto.SetupRequestDTO;
+import gr.clothesmanager.core.SetupState;
 import gr.clothesmanager.core.enums.Status;
 import gr.clothesmanager.dto.StoreDTO;
 import gr.clothesmanager.dto.UserDTO;
@@ -25,6 +26,7 @@ public class SetupController {
 
     private final UserService userService;
     private final StoreService storeService;
+    private final SetupState setupState;
 
     @GetMapping("/status")
     public ResponseEntity<Map<String, Boolean>> checkSetupStatus() {
@@ -73,6 +75,7 @@ public class SetupController {
                     setupRequest.getPassword(),
                     savedStore
             );
+            setupState.markCompleted();
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
@@ -26,8 +26,9 @@ public class SizeController {
     }
 
     @GetMapping
-    public ResponseEntity<List<SizeDTO>> findAll() {
-        return ResponseEntity.ok(sizeService.findAll());
+    public ResponseEntity<List<SizeDTO>> findAll(
+            @RequestParam(defaultValue = "false") boolean withMaterialCount) {
+        return ResponseEntity.ok(withMaterialCount ? sizeService.findAllWithMaterialCount() : sizeService.findAll());
     }
 
     @PostMapping
@@ -2,6 +2,7 @@ package gr.clothesmanager.controller;
 
 import gr.clothesmanager.auth.AuthorizationService;
 import gr.clothesmanager.core.enums.Status;
+import gr.clothesmanager.core.enums.StoreInclude;
 import gr.clothesmanager.dto.MaterialDTO;
 import gr.clothesmanager.dto.StoreDTO;
 import gr.clothesmanager.service.MaterialService;
@@ -30,24 +31,24 @@ public class StoreController {
     private final UserService userService;
 
     @GetMapping
-    public ResponseEntity<List<StoreDTO>> getAllStores() throws UserNotFoundException {
-        List<StoreDTO> stores = storeService.findAll();
+    public ResponseEntity<List<StoreDTO>> getAllStores(
+            @RequestParam(required = false) List<String> include) throws UserNotFoundException {
+        List<StoreDTO> stores = storeService.findAll(StoreInclude.parse(include));
         return ResponseEntity.ok(stores);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<StoreDTO> getStoreById(@PathVariable Long id) throws StoreNotFoundException {
-        StoreDTO store = storeService.findById(id);
+    public ResponseEntity<StoreDTO> getStoreById(
+            @PathVariable Long id,
+            @RequestParam(required = false) List<String> include) throws StoreNotFoundException {
+        StoreDTO store = storeService.findById(id, StoreInclude.parse(include));
         return ResponseEntity.ok(store);
     }
 
     @PostMapping
     @PreAuthorize("hasRole('SUPER_ADMIN')")
     public ResponseEntity<StoreDTO> createStore(@RequestBody StoreDTO storeDTO) throws StoreAlreadyExistsException, UserNotFoundException {
-        authorizationService.authorize(
-                userService.getAuthenticatedUserDetails().getUsername(),
-                "SUPER_ADMIN"
-        );
+        authorizationService.authorize(userService.getAuthenticatedUsername(), "SUPER_ADMIN");
 
         StoreDTO createdStore = storeService.save(storeDTO);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdStore);
@@ -62,7 +63,7 @@ public class StoreController {
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('SUPER_ADMIN')")
     public ResponseEntity<Void> editStore(@PathVariable Long id, @RequestBody StoreDTO storeDTO) throws StoreNotFoundException, UserNotFoundException {
-        authorizationService.authorize(userService.getAuthenticatedUserDetails().getUsername(), "SUPER_ADMIN");
+        authorizationService.authorize(userService.getAuthenticatedUsername(), "SUPER_ADMIN");
 
         storeService.edit(id, storeDTO);
         return ResponseEntity.noContent().build();
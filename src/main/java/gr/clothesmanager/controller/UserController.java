@@ -3,13 +3,18 @@ package gr.clothesmanager.controller;
 import gr.clothesmanager.auth.AuthorizationService;
 import gr.clothesmanager.auth.dto.ResponseMessageDTO;
 import gr.clothesmanager.core.enums.Status;
+import gr.clothesmanager.dto.PageResponse;
 import gr.clothesmanager.dto.UserDTO;
+import gr.clothesmanager.dto.UserSummaryDTO;
 import gr.clothesmanager.service.StoreService;
 import gr.clothesmanager.service.UserService;
 import gr.clothesmanager.service.exceptions.StoreNotFoundException;
 import gr.clothesmanager.service.exceptions.UserAlreadyExistsException;
 import gr.clothesmanager.service.exceptions.UserNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -36,6 +41,20 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/directory")
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'LOCAL_ADMIN')")
+    public ResponseEntity<PageResponse<UserSummaryDTO>> getUserDirectory(
+            @RequestParam(required = false) Long storeId,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) Status status,
+            @RequestParam(required = false) String role,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Page<UserSummaryDTO> users = userService.findUserDirectory(
+                storeId, username, status, role, PageRequest.of(page, size, Sort.by("username")));
+        return ResponseEntity.ok(PageResponse.from(users));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'LOCAL_ADMIN')")
     public ResponseEntity<UserDTO> getUserById(@PathVariable Long id) throws UserNotFoundException {
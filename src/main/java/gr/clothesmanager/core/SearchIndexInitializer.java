@@ -0,0 +1,173 @@
+package gr.clothesmanager.core;
+
+import gr.clothesmanager.common.SearchKey;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Startup maintenance for material search: fills search_key for rows written before the
+ * column existed (or by data.sql), adds the natural-key unique index and the ngram FULLTEXT index
+ * that ddl-auto cannot create. Runs once all beans exist, before the web server takes requests.
+ * An index that cannot be created stops the startup. So do duplicate (search_key, store, size) rows,
+ * with a report; they are merged only when {@code materials.natural-key.merge-duplicates=true} is set
+ * for a one-off run.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchIndexInitializer implements SmartInitializingSingleton {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchIndexInitializer.class);
+
+    public static final String MATERIAL_SEARCH_INDEX = "ft_materials_search_key";
+    public static final String MATERIAL_NATURAL_KEY = "uk_materials_natural_key";
+    private static final String LEGACY_TEXT_INDEX = "ft_materials_text";
+    private static final String LEGACY_SEARCH_KEY_INDEX = "idx_materials_search_key";
+    // replaced by idx_stock_movements_snapshot_time (snapshot_at, occurred_at), which ddl-auto adds
+    private static final String LEGACY_MOVEMENT_SNAPSHOT_INDEX = "idx_stock_movements_snapshot";
+    private static final int BACKFILL_BATCH = 500;
+    private static final int REPORTED_DUPLICATES = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${materials.natural-key.merge-duplicates:false}")
+    private boolean mergeDuplicates;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        ensureIndexes();
+    }
+
+    private void ensureIndexes() {
+        try {
+            backfillSearchKeys();
+            ensureNaturalKey();
+
+            if (indexExists(LEGACY_TEXT_INDEX)) {
+                jdbcTemplate.execute("ALTER TABLE materials DROP INDEX " + LEGACY_TEXT_INDEX);
+            }
+            if (indexExists("stock_movements", LEGACY_MOVEMENT_SNAPSHOT_INDEX)) {
+                jdbcTemplate.execute("ALTER TABLE stock_movements DROP INDEX " + LEGACY_MOVEMENT_SNAPSHOT_INDEX);
+            }
+            if (indexExists(MATERIAL_SEARCH_INDEX)) {
+                return;
+            }
+
+            // same connection for both statements: with the default stopword list any ngram
+            // containing e.g. "a" or "i" would never be indexed
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET SESSION innodb_ft_enable_stopword = OFF");
+                    statement.execute("ALTER TABLE materials ADD FULLTEXT INDEX " + MATERIAL_SEARCH_INDEX +
+                            " (search_key) WITH PARSER ngram");
+                }
+                return null;
+            });
+            LOGGER.info("Created full-text index {} on materials", MATERIAL_SEARCH_INDEX);
+        } catch (DataAccessException ex) {
+            // material search runs MATCH ... AGAINST on this index and would fail on every request without it
+            throw new IllegalStateException("Could not prepare material search indexes: " + ex.getMessage(), ex);
+        }
+    }
+
+    private void backfillSearchKeys() {
+        int updated = 0;
+        List<Object[]> rows;
+        do {
+            rows = jdbcTemplate.query(
+                    "SELECT id, text FROM materials WHERE search_key IS NULL AND text IS NOT NULL LIMIT " + BACKFILL_BATCH,
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2)});
+            jdbcTemplate.batchUpdate("UPDATE materials SET search_key = ? WHERE id = ?",
+                    rows.stream().map(row -> new Object[]{SearchKey.normalize((String) row[1]), row[0]}).toList());
+            updated += rows.size();
+        } while (rows.size() == BACKFILL_BATCH);
+
+        if (updated > 0) {
+            LOGGER.info("Filled search_key for {} materials", updated);
+        }
+    }
+
+    // ddl-auto cannot add the unique index while duplicates exist
+    private void ensureNaturalKey() {
+        if (!indexExists(MATERIAL_NATURAL_KEY)) {
+            if (!mergeDuplicates) {
+                failOnDuplicates();
+            }
+            List<Object[]> duplicates = jdbcTemplate.query(
+                    "SELECT d.id, k.keeper_id, d.quantity + COALESCE((SELECT SUM(s.quantity) FROM material_stock_stripes s " +
+                            "WHERE s.material_id = d.id), 0) " +
+                            "FROM materials d JOIN (SELECT search_key, store_id, size_id, MIN(id) AS keeper_id FROM materials " +
+                            "WHERE search_key IS NOT NULL GROUP BY search_key, store_id, size_id HAVING COUNT(*) > 1) k " +
+                            "ON d.search_key = k.search_key AND d.store_id = k.store_id AND d.size_id = k.size_id " +
+                            "WHERE d.id <> k.keeper_id",
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getInt(3)});
+
+            // one-off migration: fold each duplicate into the lowest id
+            transactionTemplate.executeWithoutResult(status -> duplicates.forEach(duplicate -> {
+                jdbcTemplate.update("UPDATE orders SET material_id = ? WHERE material_id = ?", duplicate[1], duplicate[0]);
+                jdbcTemplate.update("UPDATE stock_movements SET material_id = ? WHERE material_id = ?", duplicate[1], duplicate[0]);
+                jdbcTemplate.update("UPDATE stock_snapshots SET material_id = ? WHERE material_id = ?", duplicate[1], duplicate[0]);
+                jdbcTemplate.update("UPDATE materials SET quantity = quantity + ? WHERE id = ?", duplicate[2], duplicate[1]);
+                jdbcTemplate.update("DELETE FROM material_stock_stripes WHERE material_id = ?", duplicate[0]);
+                jdbcTemplate.update("DELETE FROM materials WHERE id = ?", duplicate[0]);
+            }));
+            if (!duplicates.isEmpty()) {
+                LOGGER.warn("Merged {} duplicate materials before adding {}", duplicates.size(), MATERIAL_NATURAL_KEY);
+            }
+
+            jdbcTemplate.execute("ALTER TABLE materials ADD CONSTRAINT " + MATERIAL_NATURAL_KEY +
+                    " UNIQUE (search_key, store_id, size_id)");
+            LOGGER.info("Created unique index {} on materials", MATERIAL_NATURAL_KEY);
+        }
+
+        // same columns as the unique index, no longer needed
+        if (indexExists(LEGACY_SEARCH_KEY_INDEX)) {
+            jdbcTemplate.execute("ALTER TABLE materials DROP INDEX " + LEGACY_SEARCH_KEY_INDEX);
+        }
+    }
+
+    private void failOnDuplicates() {
+        List<String> groups = jdbcTemplate.query(
+                "SELECT search_key, store_id, size_id, GROUP_CONCAT(id ORDER BY id) FROM materials " +
+                        "WHERE search_key IS NOT NULL GROUP BY search_key, store_id, size_id HAVING COUNT(*) > 1 " +
+                        "ORDER BY MIN(id) LIMIT " + (REPORTED_DUPLICATES + 1),
+                (rs, rowNum) -> "'" + rs.getString(1) + "' store " + rs.getLong(2) + " size " + rs.getLong(3) +
+                        ": ids " + rs.getString(4));
+        if (groups.isEmpty()) {
+            return;
+        }
+
+        StringBuilder report = new StringBuilder("Duplicate materials prevent the unique index ")
+                .append(MATERIAL_NATURAL_KEY).append(" (search_key, store_id, size_id):");
+        groups.stream().limit(REPORTED_DUPLICATES).forEach(group -> report.append("\n  ").append(group));
+        if (groups.size() > REPORTED_DUPLICATES) {
+            report.append("\n  ...");
+        }
+        report.append("\nMerge them by hand, or start once with materials.natural-key.merge-duplicates=true " +
+                "to fold each group into its lowest id (orders, ledger and stock move with it).");
+        throw new IllegalStateException(report.toString());
+    }
+
+    private boolean indexExists(String indexName) {
+        return indexExists("materials", indexName);
+    }
+
+    private boolean indexExists(String tableName, String indexName) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics " +
+                        "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?",
+                Integer.class, tableName, indexName);
+        return existing != null && existing > 0;
+    }
+}
@@ -0,0 +1,37 @@
+package gr.clothesmanager.core;
+
+import gr.clothesmanager.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Whether the initial setup has been done. Once any user exists setup can never become
+ * required again, so the flag latches and the database is only consulted until then
+ * (which also picks up a setup completed on another node).
+ */
+@Component
+@RequiredArgsConstructor
+public class SetupState {
+
+    private final UserRepository userRepository;
+
+    private volatile boolean completed;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkOnStartup() {
+        isCompleted();
+    }
+
+    public boolean isCompleted() {
+        if (!completed && userRepository.count() > 0) {
+            completed = true;
+        }
+        return completed;
+    }
+
+    public void markCompleted() {
+        completed = true;
+    }
+}
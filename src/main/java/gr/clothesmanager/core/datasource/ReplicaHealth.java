@@ -0,0 +1,72 @@
+package gr.clothesmanager.core.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Periodically probes the replica. It is usable only while it answers and, when a lag query is
+ * configured, reports a lag of at most max-lag-seconds. An empty lag query (e.g. two local
+ * databases without replication) only checks connectivity.
+ */
+public class ReplicaHealth {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaHealth.class);
+
+    private final JdbcTemplate replica;
+    private final String lagQuery;
+    private final String lagColumn;
+    private final long maxLagSeconds;
+
+    private volatile boolean usable;
+
+    public ReplicaHealth(DataSource replica, String lagQuery, String lagColumn, long maxLagSeconds) {
+        this.replica = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery;
+        this.lagColumn = lagColumn;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    public void markDown(String reason) {
+        if (usable) {
+            LOGGER.warn("Replica taken out of rotation: {}", reason);
+        }
+        usable = false;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.check-interval:5000}")
+    public void check() {
+        try {
+            replica.queryForObject("SELECT 1", Integer.class);
+
+            if (lagQuery != null && !lagQuery.isBlank()) {
+                List<Map<String, Object>> status = replica.queryForList(lagQuery);
+                Object lag = status.isEmpty() ? null : status.get(0).get(lagColumn);
+                if (!(lag instanceof Number seconds)) {
+                    markDown("replication is not running");
+                    return;
+                }
+                if (seconds.longValue() > maxLagSeconds) {
+                    markDown("lag of " + seconds + "s exceeds " + maxLagSeconds + "s");
+                    return;
+                }
+            }
+
+            if (!usable) {
+                LOGGER.info("Replica back in rotation");
+            }
+            usable = true;
+        } catch (RuntimeException ex) {
+            markDown(ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package gr.clothesmanager.core.enums;
+
+// what an import row does to a material that already exists (same text, store and size)
+public enum ImportMode {
+    REPLACE,
+    ADD
+}
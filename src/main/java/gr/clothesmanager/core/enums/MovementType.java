@@ -0,0 +1,10 @@
+package gr.clothesmanager.core.enums;
+
+// why a stock movement happened; the sign of the delta says which way the stock went
+public enum MovementType {
+    ORDER,
+    CANCEL,
+    DISTRIBUTE_OUT,
+    DISTRIBUTE_IN,
+    ADJUST
+}
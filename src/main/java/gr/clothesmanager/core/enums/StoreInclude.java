@@ -0,0 +1,32 @@
+package gr.clothesmanager.core.enums;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+// optional expansions of a store response, requested with ?include=materials,users,orders,counts
+public enum StoreInclude {
+    MATERIALS,
+    USERS,
+    ORDERS,
+    COUNTS;
+
+    public static Set<StoreInclude> parse(Collection<String> values) {
+        Set<StoreInclude> includes = EnumSet.noneOf(StoreInclude.class);
+        if (values == null) {
+            return includes;
+        }
+        for (String value : values) {
+            if (value == null || value.isBlank()) {
+                continue;
+            }
+            try {
+                includes.add(valueOf(value.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("INVALID_INCLUDE");
+            }
+        }
+        return includes;
+    }
+}
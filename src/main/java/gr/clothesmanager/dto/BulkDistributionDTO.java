@@ -0,0 +1,38 @@
+package gr.clothesmanager.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkDistributionDTO {
+    @NotNull(message = "Material ID is required")
+    private Long materialId;
+
+    @Valid
+    @NotEmpty(message = "At least one allocation is required")
+    @Builder.Default
+    private List<Allocation> allocations = new ArrayList<>();
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Allocation {
+        @NotNull(message = "Receiver store ID is required")
+        private Long storeId;
+
+        @NotNull(message = "Quantity is required")
+        @Min(value = 1, message = "Quantity must be at least 1")
+        private Integer quantity;
+    }
+}
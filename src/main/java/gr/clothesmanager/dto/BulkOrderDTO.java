@@ -0,0 +1,25 @@
+package gr.clothesmanager.dto;
+
+import gr.clothesmanager.core.enums.OrderStatus;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.*;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+// request: dateOfOrder, orderStatus and lines with materialId + quantity; response adds the header id and full lines
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkOrderDTO {
+    private Long id;
+    private Date dateOfOrder;
+    private OrderStatus orderStatus;
+
+    @NotEmpty
+    @Builder.Default
+    private List<OrderDTO> lines = new ArrayList<>();
+}
@@ -0,0 +1,29 @@
+package gr.clothesmanager.dto;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImportReportDTO {
+    private long totalRows;
+    private long created;
+    private long updated;
+    private long failed;
+    // capped at maxErrors, errorsTruncated tells whether more rows failed
+    @Builder.Default
+    private List<RowError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+
+    @Getter
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
@@ -18,8 +18,9 @@ public class MaterialDTO {
     private String sizeName;
     private String storeTitle;
     private Long storeId;
+    private Integer stripeCount;
 
-    public Material toModel() { return new Material(id, text, quantity, null, null);}
+    public Material toModel() { return Material.builder().id(id).text(text).quantity(quantity).build(); }
 
     public static MaterialDTO fromModel(Material material) {
         if (material == null) return null;
@@ -27,11 +28,12 @@ public class MaterialDTO {
         return MaterialDTO.builder()
                 .id(material.getId())
                 .text(material.getText())
-                .quantity(material.getQuantity())
+                .quantity(material.getStockQuantity())
                 .sizeId(material.getSize() != null ? material.getSize().getId() : null)
                 .sizeName(material.getSize() != null ? material.getSize().getName() : null)
                 .storeId(material.getStore() != null ? material.getStore().getId() : null)
                 .storeTitle(material.getStore() != null ? material.getStore().getTitle() : null)
+                .stripeCount(material.getStripeCount())
                 .build();
     }
 
@@ -45,6 +47,7 @@ public class MaterialDTO {
                 ", sizeName='" + sizeName + '\'' +
                 ", storeId=" + storeId +
                 ", storeTitle='" + storeTitle + '\'' +
+                ", stripeCount=" + stripeCount +
                 '}';
     }
 }
\ No newline at end of file
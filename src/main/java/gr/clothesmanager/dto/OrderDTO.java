@@ -1,6 +1,9 @@
 package gr.clothesmanager.dto;
 import gr.clothesmanager.core.enums.OrderStatus;
+import gr.clothesmanager.core.enums.Status;
 import gr.clothesmanager.model.Order;
+import gr.clothesmanager.model.Store;
+import gr.clothesmanager.model.User;
 import lombok.*;
 
 import java.sql.Date;
@@ -22,7 +25,7 @@ public class OrderDTO {
     private UserDTO user;
     private Integer stock;
 
-    public Order toModel() { return new Order(id, dateOfOrder, quantity, orderStatus, null, null, null ,null); }
+    public Order toModel() { return new Order(id, dateOfOrder, quantity, orderStatus, null, null, null, null, null); }
 
     public static OrderDTO fromModel(Order order) {
         if (order == null) return null;
@@ -33,10 +36,59 @@ public class OrderDTO {
                 .orderStatus(order.getOrderStatus())
                 .materialId(order.getMaterial() != null ? order.getMaterial().getId() : null)
                 .materialText(order.getMaterial() != null ? order.getMaterial().getText() : null)
-                .size(order.getSize() != null ? SizeDTO.fromModel(order.getSize()) : null)
-                .store(order.getStore() != null ? StoreDTO.fromModel(order.getStore()) : null)
-                .user(order.getUser() != null ? UserDTO.fromModel(order.getUser()) : null)
-                .stock(order.getMaterial() != null ? order.getMaterial().getQuantity() : null)
+                .size(order.getSize() != null ? size(order.getSize().getId(), order.getSize().getName()) : null)
+                .store(order.getStore() != null ? store(order.getStore()) : null)
+                .user(order.getUser() != null ? user(order.getUser()) : null)
+                .stock(order.getMaterial() != null ? order.getMaterial().getStockQuantity() : null)
+                .build();
+    }
+
+    public static OrderDTO fromView(OrderView view) {
+        if (view == null) return null;
+        StoreDTO userStore = view.userStoreId() != null
+                ? store(view.userStoreId(), view.userStoreTitle(), view.userStoreAddress(), view.userStoreStatus())
+                : null;
+        return OrderDTO.builder()
+                .id(view.id())
+                .dateOfOrder(view.dateOfOrder())
+                .quantity(view.quantity())
+                .orderStatus(view.orderStatus())
+                .materialId(view.materialId())
+                .materialText(view.materialText())
+                .size(size(view.sizeId(), view.sizeName()))
+                .store(store(view.storeId(), view.storeTitle(), view.storeAddress(), view.storeStatus()))
+                .user(UserDTO.builder()
+                        .id(view.userId())
+                        .username(view.username())
+                        .status(view.userStatus())
+                        .isSystemEntity(view.userIsSystemEntity())
+                        .store(userStore)
+                        .build())
+                .stock(view.stock())
+                .build();
+    }
+
+    // nested objects carry only their own columns, never the collections behind them
+
+    private static SizeDTO size(Long id, String name) {
+        return SizeDTO.builder().id(id).name(name).build();
+    }
+
+    private static StoreDTO store(Long id, String title, String address, Status status) {
+        return StoreDTO.builder().id(id).title(title).address(address).status(status).build();
+    }
+
+    private static StoreDTO store(Store store) {
+        return store(store.getId(), store.getTitle(), store.getAddress(), store.getStatus());
+    }
+
+    private static UserDTO user(User user) {
+        return UserDTO.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .status(user.getStatus())
+                .isSystemEntity(user.getIsSystemEntity())
+                .store(user.getStore() != null ? store(user.getStore()) : null)
                 .build();
     }
 
@@ -0,0 +1,44 @@
+package gr.clothesmanager.dto;
+
+import gr.clothesmanager.core.enums.OrderStatus;
+import gr.clothesmanager.core.enums.Status;
+
+import java.sql.Date;
+
+/**
+ * Flat read model for order listings, filled by a single JPQL constructor expression
+ * (see OrderRepository) so no lazy association is touched while building the response.
+ */
+public record OrderView(Long id,
+                        Date dateOfOrder,
+                        Integer quantity,
+                        OrderStatus orderStatus,
+                        Long materialId,
+                        String materialText,
+                        Integer stock,
+                        Long sizeId,
+                        String sizeName,
+                        Long storeId,
+                        String storeTitle,
+                        String storeAddress,
+                        Status storeStatus,
+                        Long userId,
+                        String username,
+                        Status userStatus,
+                        Boolean userIsSystemEntity,
+                        Long userStoreId,
+                        String userStoreTitle,
+                        String userStoreAddress,
+                        Status userStoreStatus) {
+
+    // o = Order, m = material, sz = size, st = store, u = user, us = user's store (left join)
+    public static final String SELECT =
+            "SELECT new gr.clothesmanager.dto.OrderView(" +
+            "o.id, o.dateOfOrder, o.quantity, o.orderStatus, " +
+            "m.id, m.text, m.availableQuantity, " +
+            "sz.id, sz.name, " +
+            "st.id, st.title, st.address, st.status, " +
+            "u.id, u.username, u.status, u.isSystemEntity, " +
+            "us.id, us.title, us.address, us.status) " +
+            "FROM Order o JOIN o.material m JOIN o.size sz JOIN o.store st JOIN o.user u LEFT JOIN u.store us ";
+}
@@ -10,11 +10,12 @@ import java.util.List;
 @AllArgsConstructor
 public class PageResponse<T> {
     private List<T> content;
-    private int pageNumber;
+    private Integer pageNumber;
     private int pageSize;
-    private long totalElements;
-    private int totalPages;
+    private Long totalElements;
+    private Integer totalPages;
     private boolean last;
+    private String next;
 
     public static <T> PageResponse<T> from(Page<T> page) {
         return new PageResponse<>(
@@ -23,7 +24,24 @@ public class PageResponse<T> {
             page.getSize(),
             page.getTotalElements(),
             page.getTotalPages(),
-            page.isLast()
+            page.isLast(),
+            null
         );
     }
-}
\ No newline at end of file
+
+    // keyset page: no page number, totals only when they were asked for
+    public static <T> PageResponse<T> ofCursor(List<T> content, int pageSize, String next, Long totalElements) {
+        Integer totalPages = totalElements != null && pageSize > 0
+                ? (int) Math.ceil((double) totalElements / pageSize)
+                : null;
+        return new PageResponse<>(
+            content,
+            null,
+            pageSize,
+            totalElements,
+            totalPages,
+            next == null,
+            next
+        );
+    }
+}
@@ -0,0 +1,51 @@
+package gr.clothesmanager.dto;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ReplenishmentPlanDTO {
+    private int storesEvaluated;
+    private int rulesEvaluated;
+    private long computeMillis;
+
+    @Builder.Default
+    private List<Transfer> transfers = new ArrayList<>();
+
+    // what no surplus store could cover
+    @Builder.Default
+    private List<Shortage> unmet = new ArrayList<>();
+
+    // filled in by execute, null for a plan only
+    private Integer executedTransfers;
+    private Integer failedTransfers;
+
+    @Builder.Default
+    private List<String> errors = new ArrayList<>();
+
+    @Getter
+    @AllArgsConstructor
+    public static class Transfer {
+        private Long sourceMaterialId;
+        private Long sourceStoreId;
+        private Long targetStoreId;
+        private String text;
+        private Long sizeId;
+        private int quantity;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Shortage {
+        private Long storeId;
+        private String text;
+        private Long sizeId;
+        private int quantity;
+    }
+}
@@ -1,11 +1,9 @@
 package gr.clothesmanager.dto;
 
-import gr.clothesmanager.model.Material;
 import gr.clothesmanager.model.Size;
 import lombok.*;
 
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Getter
 @Setter
@@ -16,6 +14,8 @@ public class SizeDTO {
     private Long id;
     private String name;
     private Set<Long> materialIds;
+    // filled only with ?withMaterialCount=true
+    private Long materialCount;
 
     public Size toModel() {return new Size(id, name,null);}
 
@@ -24,7 +24,6 @@ public class SizeDTO {
         return SizeDTO.builder()
                 .id(size.getId())
                 .name(size.getName())
-                .materialIds(size.getMaterials() != null ? size.getMaterials().stream().map(Material::getId).collect(Collectors.toSet()) : null)
                 .build();
     }
 
@@ -34,6 +33,7 @@ public class SizeDTO {
                 "id=" + id +
                 ", name='" + name + '\'' +
                 ", materialIds=" + materialIds +
+                ", materialCount=" + materialCount +
                 '}';
     }
 }
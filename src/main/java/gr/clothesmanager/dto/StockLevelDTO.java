@@ -0,0 +1,14 @@
+package gr.clothesmanager.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StockLevelDTO {
+    private Long materialId;
+    private Long storeId;
+    private Integer quantity;
+}
@@ -0,0 +1,45 @@
+package gr.clothesmanager.dto;
+
+import gr.clothesmanager.model.StockLevelRule;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StockLevelRuleDTO {
+    private Long id;
+
+    @NotNull(message = "Store ID is required")
+    private Long storeId;
+
+    @NotBlank(message = "Text is required")
+    private String text;
+
+    @NotNull(message = "Size ID is required")
+    private Long sizeId;
+
+    @NotNull(message = "Min level is required")
+    @Min(value = 0, message = "Min level cannot be negative")
+    private Integer minLevel;
+
+    @NotNull(message = "Max level is required")
+    @Min(value = 0, message = "Max level cannot be negative")
+    private Integer maxLevel;
+
+    public static StockLevelRuleDTO fromModel(StockLevelRule rule) {
+        if (rule == null) return null;
+        return StockLevelRuleDTO.builder()
+                .id(rule.getId())
+                .storeId(rule.getStoreId())
+                .text(rule.getText())
+                .sizeId(rule.getSizeId())
+                .minLevel(rule.getMinLevel())
+                .maxLevel(rule.getMaxLevel())
+                .build();
+    }
+}
@@ -1,11 +1,10 @@
 package gr.clothesmanager.dto;
 
 import gr.clothesmanager.core.enums.Status;
-import gr.clothesmanager.model.*;
+import gr.clothesmanager.model.Store;
 import lombok.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Getter
 @Setter
@@ -21,9 +20,14 @@ public class StoreDTO {
     private List<Long> userIds;
     private List<Long> materialIds;
     private List<Long> materialDescriptionIds;
+    // filled only with ?include=counts
+    private Long orderCount;
+    private Long userCount;
+    private Long materialCount;
 
     public Store toModel() {return new Store(id, title, address, status, null, null,null);}
 
+    // summary only; id lists and counts are added by StoreService for ?include=
     public static StoreDTO fromModel(Store store) {
         if (store == null) return null;
 
@@ -32,9 +36,6 @@ public class StoreDTO {
                 .title(store.getTitle())
                 .address(store.getAddress())
                 .status(store.getStatus())
-                .orderIds(store.getOrders() != null ? store.getOrders().stream().map(Order::getId).collect(Collectors.toList()) : null)
-                .userIds(store.getUsers() != null ? store.getUsers().stream().map(User::getId).collect(Collectors.toList()) : null)
-                .materialIds(store.getMaterials() != null ? store.getMaterials().stream().map(Material::getId).collect(Collectors.toList()) : null)
                 .build();
     }
 
@@ -49,6 +50,9 @@ public class StoreDTO {
                 ", userIds=" + userIds +
                 ", materialIds=" + materialIds +
                 ", materialDescriptionIds=" + materialDescriptionIds +
+                ", orderCount=" + orderCount +
+                ", userCount=" + userCount +
+                ", materialCount=" + materialCount +
                 '}';
     }
 }
\ No newline at end of file
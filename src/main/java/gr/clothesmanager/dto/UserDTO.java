@@ -1,7 +1,6 @@
 package gr.clothesmanager.dto;
 
 import gr.clothesmanager.core.enums.Status;
-import gr.clothesmanager.model.Order;
 import gr.clothesmanager.model.User;
 import gr.clothesmanager.model.UserRole;
 import lombok.*;
@@ -25,17 +24,16 @@ public class UserDTO {
     private List<UserRoleDTO> roles;
     private List<Long> orderIds;
 
+    // password is input-only and orders are never walked; orderIds stays null
     public static UserDTO fromModel(User user) {
         if (user == null) return null;
         return UserDTO.builder()
                 .id(user.getId())
                 .username(user.getUsername())
-                .password(user.getPassword())
                 .status(user.getStatus())
                 .isSystemEntity(user.getIsSystemEntity())
                 .store(user.getStore() != null ? StoreDTO.fromModel(user.getStore()) : null)
                 .roles(user.getRoles() != null ? user.getRoles().stream().map(UserRoleDTO::fromModel).collect(Collectors.toList()) : null)
-                .orderIds(user.getOrders() != null ? user.getOrders().stream().map(Order::getId).collect(Collectors.toList()) : null)
                 .build();
     }
 
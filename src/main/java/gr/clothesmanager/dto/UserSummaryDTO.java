@@ -0,0 +1,38 @@
+package gr.clothesmanager.dto;
+
+import gr.clothesmanager.core.enums.Status;
+import gr.clothesmanager.model.User;
+import lombok.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// row of the user directory: no password hash, no order id list
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserSummaryDTO {
+    private Long id;
+    private String username;
+    private Status status;
+    private Boolean isSystemEntity;
+    private StoreDTO store;
+    private List<UserRoleDTO> roles;
+    private long orderCount;
+
+    // expects roles and store to be fetched already
+    public static UserSummaryDTO fromModel(User user, long orderCount) {
+        if (user == null) return null;
+        return UserSummaryDTO.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .status(user.getStatus())
+                .isSystemEntity(user.getIsSystemEntity())
+                .store(user.getStore() != null ? StoreDTO.fromModel(user.getStore()) : null)
+                .roles(user.getRoles() != null ? user.getRoles().stream().map(UserRoleDTO::fromModel).collect(Collectors.toList()) : null)
+                .orderCount(orderCount)
+                .build();
+    }
+}
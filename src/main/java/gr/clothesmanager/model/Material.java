@@ -1,7 +1,10 @@
 package gr.clothesmanager.model;
 
+import gr.clothesmanager.common.SearchKey;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Formula;
 
 @Entity
 @AllArgsConstructor
@@ -9,16 +12,35 @@ import lombok.*;
 @Getter
 @Setter
 @Builder
-@Table(name = "materials")
+@DynamicUpdate
+@Table(name = "materials",
+        uniqueConstraints = @UniqueConstraint(name = "uk_materials_natural_key",
+                columnNames = {"search_key", "store_id", "size_id"}),
+        indexes = {
+                @Index(name = "idx_materials_text_id", columnList = "text, id"),
+                @Index(name = "idx_materials_store_text_id", columnList = "store_id, text, id")
+        })
 public class Material {
+    // id blocks, shared with MaterialUpsertRepository which reserves ids for its native inserts
+    public static final String ID_TABLE = "id_generators";
+    public static final String ID_SEGMENT = "materials";
+    public static final int ID_BLOCK_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "material_ids")
+    @TableGenerator(name = "material_ids", table = ID_TABLE, pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = ID_SEGMENT, allocationSize = ID_BLOCK_SIZE)
     private Long id;
     private String text;
     private Integer quantity;
 
+    // SearchKey.normalize(text), kept in sync by setText and on persist
+    @Setter(AccessLevel.NONE)
+    @Column(name = "search_key")
+    private String searchKey;
+
     public Material(String text, Integer quantity, Size size, Store store) {
-        this.text = text;
+        setText(text);
         this.quantity = quantity;
         this.size = size;
         this.store = store;
@@ -31,6 +53,34 @@ public class Material {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "store_id", referencedColumnName = "id", nullable = false)
     private Store store;
+
+    // number of sub-counter rows in material_stock_stripes, null/0 = single-row stock
+    @Column(name = "stripe_count")
+    private Integer stripeCount;
+
+    // base quantity plus the sum of the stripes, as loaded from the database
+    @Formula("(quantity + case when stripe_count > 0 then " +
+            "(select coalesce(sum(s.quantity), 0) from material_stock_stripes s where s.material_id = id) " +
+            "else 0 end)")
+    private Integer availableQuantity;
+
+    public void setText(String text) {
+        this.text = text;
+        this.searchKey = SearchKey.normalize(text);
+    }
+
+    @PrePersist
+    void fillSearchKey() {
+        searchKey = SearchKey.normalize(text);
+    }
+
+    public boolean isStriped() {
+        return stripeCount != null && stripeCount > 0;
+    }
+
+    public Integer getStockQuantity() {
+        return isStriped() ? availableQuantity : quantity;
+    }
 }
 
 
@@ -0,0 +1,30 @@
+package gr.clothesmanager.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@AllArgsConstructor
+@RequiredArgsConstructor
+@Getter
+@Setter
+@Builder
+@Table(name = "material_stock_stripes",
+        uniqueConstraints = @UniqueConstraint(name = "uk_material_stripe", columnNames = {"material_id", "stripe"}))
+public class MaterialStockStripe {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "material_stock_stripe_ids")
+    @TableGenerator(name = "material_stock_stripe_ids", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "material_stock_stripes", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "material_id", referencedColumnName = "id", nullable = false)
+    private Material material;
+
+    @Column(nullable = false)
+    private Integer stripe;
+
+    @Column(nullable = false)
+    private Integer quantity;
+}
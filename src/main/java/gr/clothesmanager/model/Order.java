@@ -15,7 +15,9 @@ import java.sql.Date;
 @Table(name = "orders")
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_ids")
+    @TableGenerator(name = "order_ids", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "orders", allocationSize = 50)
     private Long id;
 
     @DateTimeFormat(pattern = "yyyy-MM-dd")
@@ -52,6 +54,11 @@ public class Order {
     @JoinColumn(name = "user_id", referencedColumnName = "id", nullable = false)
     private User user;
 
+    // set only for lines of a bulk order
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_header_id", referencedColumnName = "id")
+    private OrderHeader header;
+
     @Override
     public String toString() {
         return "Order{" +
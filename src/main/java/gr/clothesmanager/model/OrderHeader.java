@@ -0,0 +1,36 @@
+package gr.clothesmanager.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+// groups the order lines created together by POST /api/orders/bulk; single orders have no header
+@Entity
+@RequiredArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Table(name = "order_headers")
+public class OrderHeader {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_header_ids")
+    @TableGenerator(name = "order_header_ids", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "order_headers", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "date_of_order")
+    private Date dateOfOrder;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", referencedColumnName = "id", nullable = false)
+    private User user;
+
+    @Builder.Default
+    @OneToMany(mappedBy = "header")
+    @OrderBy("id")
+    private List<Order> lines = new ArrayList<>();
+}
@@ -1,6 +1,8 @@
 package gr.clothesmanager.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.*;
 import java.util.Set;
 
@@ -11,6 +13,7 @@ import java.util.Set;
 @Setter
 @Builder
 @Table(name = "sizes")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "sizes")
 public class Size {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,52 @@
+package gr.clothesmanager.model;
+
+import gr.clothesmanager.common.SearchKey;
+import jakarta.persistence.*;
+import lombok.*;
+
+// min/max stock a store should hold for one (text, size); stores without a rule are left alone by the planner
+@Entity
+@RequiredArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Table(name = "stock_level_rules",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_level_rule",
+                columnNames = {"store_id", "search_key", "size_id"}))
+public class StockLevelRule {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "stock_level_rule_ids")
+    @TableGenerator(name = "stock_level_rule_ids", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "stock_level_rules", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    private String text;
+
+    // SearchKey.normalize(text), matches Material.searchKey
+    @Setter(AccessLevel.NONE)
+    @Column(name = "search_key", nullable = false)
+    private String searchKey;
+
+    @Column(name = "size_id", nullable = false)
+    private Long sizeId;
+
+    @Column(name = "min_level", nullable = false)
+    private Integer minLevel;
+
+    @Column(name = "max_level", nullable = false)
+    private Integer maxLevel;
+
+    public void setText(String text) {
+        this.text = text;
+        this.searchKey = SearchKey.normalize(text);
+    }
+
+    @PrePersist
+    void fillSearchKey() {
+        searchKey = SearchKey.normalize(text);
+    }
+}
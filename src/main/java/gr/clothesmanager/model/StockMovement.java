@@ -0,0 +1,50 @@
+package gr.clothesmanager.model;
+
+import gr.clothesmanager.core.enums.MovementType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// append-only; material and store are plain ids so the history outlives deleted materials
+@Entity
+@RequiredArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movements_store_time", columnList = "store_id, occurred_at"),
+        @Index(name = "idx_stock_movements_material_time", columnList = "material_id, occurred_at"),
+        @Index(name = "idx_stock_movements_snapshot_time", columnList = "snapshot_at, occurred_at")
+})
+public class StockMovement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "stock_movement_ids")
+    @TableGenerator(name = "stock_movement_ids", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "stock_movements", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "material_id", nullable = false)
+    private Long materialId;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private MovementType type;
+
+    @Column(nullable = false)
+    private Integer delta;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    // taken_at of the snapshot that includes this movement, null until a snapshot picks it up
+    @Column(name = "snapshot_at")
+    private Instant snapshotAt;
+}
@@ -0,0 +1,30 @@
+package gr.clothesmanager.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// a PENDING order's hold on the stock it already took; released (order cancelled) when it expires unconfirmed
+@Entity
+@RequiredArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Table(name = "stock_reservations",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_reservation_order", columnNames = "order_id"),
+        indexes = @Index(name = "idx_stock_reservations_expires_at", columnList = "expires_at"))
+public class StockReservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "stock_reservation_ids")
+    @TableGenerator(name = "stock_reservation_ids", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "stock_reservations", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,36 @@
+package gr.clothesmanager.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// stock of every material with non-zero stock at takenAt, i.e. the sum of all movements before takenAt
+@Entity
+@RequiredArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Table(name = "stock_snapshots",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_snapshot", columnNames = {"taken_at", "material_id"}),
+        indexes = @Index(name = "idx_stock_snapshots_time_store", columnList = "taken_at, store_id"))
+public class StockSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "stock_snapshot_ids")
+    @TableGenerator(name = "stock_snapshot_ids", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "stock_snapshots", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "taken_at", nullable = false)
+    private Instant takenAt;
+
+    @Column(name = "material_id", nullable = false)
+    private Long materialId;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+}
@@ -2,6 +2,8 @@ package gr.clothesmanager.model;
 
 import gr.clothesmanager.core.enums.Status;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.*;
 import java.util.Set;
 
@@ -11,6 +13,7 @@ import java.util.Set;
 @Setter
 @Builder
 @Table(name = "stores")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "stores")
 public class Store {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
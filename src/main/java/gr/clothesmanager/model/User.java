@@ -2,6 +2,8 @@ package gr.clothesmanager.model;
 
 import gr.clothesmanager.core.enums.Status;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.*;
 import java.util.Set;
 
@@ -27,10 +29,15 @@ public class User {
     @Column(name = "is_system_entity", nullable = false)
     private Boolean isSystemEntity;
 
+    // bumped whenever issued tokens must stop being accepted
+    @Column(name = "security_version")
+    private Integer securityVersion;
+
     @OneToMany(mappedBy = "user")
     private Set<Order> orders;
 
     @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-roles")
     @JoinTable(
             name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
@@ -51,4 +58,9 @@ public class User {
         this.roles = roles;
         this.store = store;
     }
+
+    public int nextSecurityVersion() {
+        securityVersion = (securityVersion == null ? 0 : securityVersion) + 1;
+        return securityVersion;
+    }
 }
\ No newline at end of file
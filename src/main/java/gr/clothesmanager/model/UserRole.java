@@ -2,6 +2,8 @@ package gr.clothesmanager.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.*;
 
 
@@ -15,6 +17,7 @@ import java.util.Set;
 @Setter
 @Builder
 @Table(name = "roles")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "roles")
 public class UserRole extends AbstractEntity{
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -2,16 +2,22 @@ package gr.clothesmanager.repository;
 
 
 import gr.clothesmanager.model.Material;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 @Repository
@@ -20,17 +26,41 @@ public interface MaterialRepository extends JpaRepository<Material, Long> {
     @Query("SELECT m FROM Material m WHERE m.store.id = :storeId")
     List<Material> findByStoreId(@Param("storeId") Long storeId);
 
-    @Query("select m from Material m where m.id = :id")
-    Optional<Material> findByIdForUpdate(@Param("id") Long id);
+    @Modifying
+    @Query("UPDATE Material m SET m.quantity = m.quantity - :quantity WHERE m.id = :id AND m.quantity >= :quantity")
+    int decrementQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE Material m SET m.quantity = m.quantity + :quantity WHERE m.id = :id")
+    int incrementQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Query("SELECT m.availableQuantity FROM Material m WHERE m.id = :id")
+    Optional<Integer> findAvailableQuantityById(@Param("id") Long id);
 
-    @Query("SELECT m FROM Material m WHERE (:text IS NULL OR m.text = :text) AND (:sizeId IS NULL OR m.size.id = :sizeId)")
+    @Query("SELECT COALESCE(m.stripeCount, 0) FROM Material m WHERE m.id = :id")
+    Optional<Integer> findStripeCountById(@Param("id") Long id);
+
+    @Query(value = "SELECT quantity FROM materials WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockQuantityById(@Param("id") Long id);
+
+    // locking (current) read, sees a stripe layout committed after this transaction's snapshot
+    @Query(value = "SELECT COALESCE(stripe_count, 0) FROM materials WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockStripeCountById(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Material m SET m.quantity = :quantity, m.stripeCount = :stripeCount WHERE m.id = :id")
+    int updateStockLayout(@Param("id") Long id,
+                          @Param("quantity") int quantity,
+                          @Param("stripeCount") Integer stripeCount);
+
+    @Query("SELECT m FROM Material m WHERE (:text IS NULL OR m.searchKey = :text) AND (:sizeId IS NULL OR m.size.id = :sizeId)")
     List<Material> findByOptionalFilters(@Param("text") String text, @Param("sizeId") Long sizeId);
 
     @Query("SELECT COUNT(m) FROM Material m")
     long countMaterials();
 
     @Query("SELECT m FROM Material m " +
-            "WHERE (:text IS NULL OR LOWER(m.text) LIKE LOWER(CONCAT('%', :text, '%'))) " +
+            "WHERE (:text IS NULL OR m.searchKey LIKE CONCAT('%', :text, '%')) " +
             "AND (:sizeId IS NULL OR m.size.id = :sizeId) " +
             "AND (:storeId IS NULL OR m.store.id = :storeId)")
     Page<Material> findByStoreIdAndFilters(@Param("storeId") Long storeId,
@@ -39,29 +69,111 @@ public interface MaterialRepository extends JpaRepository<Material, Long> {
                                            Pageable pageable);
 
     @Query("SELECT m FROM Material m " +
-            "WHERE LOWER(m.text) = LOWER(:text) " +
+            "WHERE m.searchKey = :searchKey " +
             "AND m.size.id = :sizeId " +
-            "AND m.store.id = :storeId")
-    Optional<Material> findByTextAndSizeIdAndStoreId(@Param("text") String text,
-                                                     @Param("sizeId") Long sizeId,
-                                                     @Param("storeId") Long storeId);
+            "AND m.store.id IN :storeIds")
+    List<Material> findBySearchKeyAndSizeIdAndStoreIdIn(@Param("searchKey") String searchKey,
+                                                        @Param("sizeId") Long sizeId,
+                                                        @Param("storeIds") Collection<Long> storeIds);
 
     @Query("SELECT m FROM Material m " +
-            "WHERE (:text IS NULL OR LOWER(m.text) LIKE LOWER(CONCAT('%', :text, '%'))) " +
+            "WHERE (:text IS NULL OR m.searchKey LIKE CONCAT('%', :text, '%')) " +
             "AND (:sizeId IS NULL OR m.size.id = :sizeId)")
     Page<Material> findAllByFilters(@Param("text") String text,
                                     @Param("sizeId") Long sizeId,
                                     Pageable pageable);
 
-    boolean existsByTextAndStoreIdAndSizeId(String text, Long storeId, Long sizeId);
+    @Query("SELECT m FROM Material m " +
+            "WHERE (:text IS NULL OR m.searchKey LIKE CONCAT('%', :text, '%')) " +
+            "AND (:sizeId IS NULL OR m.size.id = :sizeId) " +
+            "AND (:storeId IS NULL OR m.store.id = :storeId) " +
+            "AND (:afterId IS NULL OR m.text > :afterText OR (m.text = :afterText AND m.id > :afterId)) " +
+            "ORDER BY m.text, m.id")
+    List<Material> findNextByFilters(@Param("storeId") Long storeId,
+                                     @Param("text") String text,
+                                     @Param("sizeId") Long sizeId,
+                                     @Param("afterText") String afterText,
+                                     @Param("afterId") Long afterId,
+                                     Limit limit);
+
+    @Query("SELECT COUNT(m) FROM Material m " +
+            "WHERE (:text IS NULL OR m.searchKey LIKE CONCAT('%', :text, '%')) " +
+            "AND (:sizeId IS NULL OR m.size.id = :sizeId) " +
+            "AND (:storeId IS NULL OR m.store.id = :storeId)")
+    long countByFilters(@Param("storeId") Long storeId,
+                        @Param("text") String text,
+                        @Param("sizeId") Long sizeId);
+
+    // full-text variants of the filters above, :phrase comes from FulltextQuery.phrase
+    @Query(value = "SELECT m FROM Material m " +
+            "WHERE function('match_against', m.searchKey, :phrase) > 0 " +
+            "AND (:sizeId IS NULL OR m.size.id = :sizeId) " +
+            "AND (:storeId IS NULL OR m.store.id = :storeId)",
+            countQuery = "SELECT COUNT(m) FROM Material m " +
+            "WHERE function('match_against', m.searchKey, :phrase) > 0 " +
+            "AND (:sizeId IS NULL OR m.size.id = :sizeId) " +
+            "AND (:storeId IS NULL OR m.store.id = :storeId)")
+    Page<Material> searchByFilters(@Param("storeId") Long storeId,
+                                   @Param("phrase") String phrase,
+                                   @Param("sizeId") Long sizeId,
+                                   Pageable pageable);
+
+    @Query("SELECT m FROM Material m " +
+            "WHERE function('match_against', m.searchKey, :phrase) > 0 " +
+            "AND (:sizeId IS NULL OR m.size.id = :sizeId) " +
+            "AND (:storeId IS NULL OR m.store.id = :storeId) " +
+            "AND (:afterId IS NULL OR m.text > :afterText OR (m.text = :afterText AND m.id > :afterId)) " +
+            "ORDER BY m.text, m.id")
+    List<Material> searchNextByFilters(@Param("storeId") Long storeId,
+                                       @Param("phrase") String phrase,
+                                       @Param("sizeId") Long sizeId,
+                                       @Param("afterText") String afterText,
+                                       @Param("afterId") Long afterId,
+                                       Limit limit);
+
+    @Query("SELECT COUNT(m) FROM Material m " +
+            "WHERE function('match_against', m.searchKey, :phrase) > 0 " +
+            "AND (:sizeId IS NULL OR m.size.id = :sizeId) " +
+            "AND (:storeId IS NULL OR m.store.id = :storeId)")
+    long countSearchByFilters(@Param("storeId") Long storeId,
+                              @Param("phrase") String phrase,
+                              @Param("sizeId") Long sizeId);
+
+    @Query("SELECT m FROM Material m WHERE m.searchKey IN :searchKeys AND m.store.id IN :storeIds")
+    List<Material> findBySearchKeysAndStoreIds(@Param("searchKeys") Collection<String> searchKeys,
+                                               @Param("storeIds") Collection<Long> storeIds);
+
+    // [store id, material id] / [store id, count] rows for the store ?include= expansions
+    @Query("SELECT m.store.id, m.id FROM Material m WHERE m.store.id IN :storeIds ORDER BY m.id")
+    List<Object[]> findIdsByStoreIds(@Param("storeIds") Collection<Long> storeIds);
+
+    @Query("SELECT m.store.id, COUNT(m) FROM Material m WHERE m.store.id IN :storeIds GROUP BY m.store.id")
+    List<Object[]> countByStoreIds(@Param("storeIds") Collection<Long> storeIds);
+
+    // material id, store id, total stock including stripes
+    @Query("SELECT m.id, m.store.id, m.availableQuantity FROM Material m")
+    List<Object[]> findStockLevels();
+
+    // material id, store id, search key, size id, total stock; streamed (MySQL fetch size MIN_VALUE) for the planner
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT m.id, m.store.id, m.searchKey, m.size.id, m.availableQuantity FROM Material m")
+    Stream<Object[]> streamStockBySku();
+
+    // base rows only, striped stock is summed by MaterialStockStripeRepository
+    @Query("SELECT m.store.id, SUM(m.quantity) FROM Material m GROUP BY m.store.id")
+    List<Object[]> sumQuantityByStore();
+
+    @Query("SELECT m.size.id, COUNT(m) FROM Material m GROUP BY m.size.id")
+    List<Object[]> countBySize();
 
     boolean existsByStoreId(Long storeId);
 
     @Modifying
     @Query("DELETE FROM Material m WHERE m.id = :id")
     void deleteDirectlyById(@Param("id") Long id);
-
-    boolean existsByTextAndStoreIdAndSizeIdAndIdNot(String text, Long storeId, Long sizeId, Long id);
 }
 
 
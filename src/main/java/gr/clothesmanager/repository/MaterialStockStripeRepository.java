@@ -0,0 +1,44 @@
+package gr.clothesmanager.repository;
+
+import gr.clothesmanager.model.MaterialStockStripe;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MaterialStockStripeRepository extends JpaRepository<MaterialStockStripe, Long> {
+
+    @Modifying
+    @Query("UPDATE MaterialStockStripe s SET s.quantity = s.quantity - :quantity " +
+            "WHERE s.material.id = :materialId AND s.stripe = :stripe AND s.quantity >= :quantity")
+    int decrementQuantity(@Param("materialId") Long materialId,
+                          @Param("stripe") int stripe,
+                          @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE MaterialStockStripe s SET s.quantity = s.quantity + :quantity " +
+            "WHERE s.material.id = :materialId AND s.stripe = :stripe")
+    int incrementQuantity(@Param("materialId") Long materialId,
+                          @Param("stripe") int stripe,
+                          @Param("quantity") int quantity);
+
+    @Query("SELECT s.material.store.id, SUM(s.quantity) FROM MaterialStockStripe s GROUP BY s.material.store.id")
+    List<Object[]> sumQuantityByStore();
+
+    // plain (non-locking) read used to pick a stripe that can serve the request
+    @Query("SELECT s.stripe FROM MaterialStockStripe s WHERE s.material.id = :materialId AND s.quantity >= :quantity")
+    List<Integer> findStripesWithAtLeast(@Param("materialId") Long materialId, @Param("quantity") int quantity);
+
+    // [stripe, quantity] rows, locked in ascending stripe order
+    @Query(value = "SELECT stripe, quantity FROM material_stock_stripes WHERE material_id = :materialId ORDER BY stripe FOR UPDATE",
+            nativeQuery = true)
+    List<Object[]> lockStripes(@Param("materialId") Long materialId);
+
+    @Modifying
+    @Query("DELETE FROM MaterialStockStripe s WHERE s.material.id = :materialId")
+    int deleteByMaterialId(@Param("materialId") Long materialId);
+}
@@ -0,0 +1,156 @@
+package gr.clothesmanager.repository;
+
+import gr.clothesmanager.common.SearchKey;
+import gr.clothesmanager.model.Material;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Atomic "create or add to" on the material natural key (search_key, store_id, size_id), backed by
+ * the uk_materials_natural_key unique index. Runs through JdbcTemplate on the current transaction's
+ * connection: a native update through Hibernate would evict every second-level cache region.
+ * MySQL only: the statements use the 8.0.19+ row alias, which no other supported database accepts,
+ * so the database is checked on first use and anything else is refused.
+ */
+@Repository
+public class MaterialUpsertRepository {
+
+    // on a duplicate LAST_INSERT_ID(id) hands the existing id back as the generated key
+    private static final String UPSERT =
+            "INSERT INTO materials (id, text, search_key, quantity, store_id, size_id) VALUES (?, ?, ?, ?, ?, ?) AS new " +
+            "ON DUPLICATE KEY UPDATE quantity = materials.quantity + new.quantity, id = LAST_INSERT_ID(materials.id)";
+
+    // batched form: no generated keys, so the existing id is not handed back
+    private static final String BATCH_UPSERT =
+            "INSERT INTO materials (id, text, search_key, quantity, store_id, size_id) VALUES (?, ?, ?, ?, ?, ?) AS new " +
+            "ON DUPLICATE KEY UPDATE quantity = materials.quantity + new.quantity";
+
+    private static final String SELECT_NEXT_ID =
+            "SELECT next_val FROM " + Material.ID_TABLE + " WHERE sequence_name = ? FOR UPDATE";
+    private static final String ADVANCE_NEXT_ID =
+            "UPDATE " + Material.ID_TABLE + " SET next_val = next_val + ? WHERE sequence_name = ?";
+
+    private static final Pattern VERSION = Pattern.compile("^(\\d+)\\.(\\d+)\\.(\\d+)");
+
+    public record Result(Long id, boolean inserted) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate separateTransaction;
+
+    private volatile Boolean supported;
+    // ids reserved but not handed out yet, nextId..lastId
+    private long nextId;
+    private long lastId = -1;
+
+    public MaterialUpsertRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.separateTransaction = new TransactionTemplate(transactionManager);
+        this.separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public Result addQuantity(String text, Long storeId, Long sizeId, int quantity) {
+        requireMySql();
+        long newId = reserveIds(1);
+        KeyHolder keys = new GeneratedKeyHolder();
+
+        int affected = jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPSERT, Statement.RETURN_GENERATED_KEYS);
+            statement.setLong(1, newId);
+            statement.setString(2, text);
+            statement.setString(3, SearchKey.normalize(text));
+            statement.setInt(4, quantity);
+            statement.setLong(5, storeId);
+            statement.setLong(6, sizeId);
+            return statement;
+        }, keys);
+
+        // affected rows: 1 = inserted, 2 = existing row updated
+        if (affected == 1) {
+            return new Result(newId, true);
+        }
+        Number existingId = keys.getKey();
+        return new Result(existingId != null ? existingId.longValue() : null, false);
+    }
+
+    // one JDBC batch for the same material in many stores, executed in the map's iteration order
+    public void addQuantities(String text, Long sizeId, Map<Long, Integer> quantitiesByStore) {
+        requireMySql();
+        String searchKey = SearchKey.normalize(text);
+        long id = reserveIds(quantitiesByStore.size());
+        List<Object[]> rows = new ArrayList<>(quantitiesByStore.size());
+        for (Map.Entry<Long, Integer> entry : quantitiesByStore.entrySet()) {
+            rows.add(new Object[]{id++, text, searchKey, entry.getValue(), entry.getKey(), sizeId});
+        }
+        jdbcTemplate.batchUpdate(BATCH_UPSERT, rows);
+    }
+
+    // first of count consecutive ids from the blocks Material's @TableGenerator hands out; an id is
+    // wasted when the row already exists, and what is left of a block when a larger range is needed
+    synchronized long reserveIds(int count) {
+        if (lastId - nextId + 1 < count) {
+            int blocks = (count + Material.ID_BLOCK_SIZE - 1) / Material.ID_BLOCK_SIZE;
+            long hi = reserveBlocks(blocks);
+            nextId = hi - Material.ID_BLOCK_SIZE + 1;
+            lastId = hi + (long) (blocks - 1) * Material.ID_BLOCK_SIZE;
+        }
+        long first = nextId;
+        nextId += count;
+        return first;
+    }
+
+    // read the way the pooled optimizer does with hibernate.id.generator.stored_last_used=true (set in
+    // application.properties): a stored value v is the last one used, so the read hands out up to v + 1;
+    // moving it on by whole blocks keeps these ranges apart from the ones entity inserts take
+    private long reserveBlocks(int blocks) {
+        Long value = separateTransaction.execute(status -> {
+            Long stored = jdbcTemplate.queryForObject(SELECT_NEXT_ID, Long.class, Material.ID_SEGMENT);
+            jdbcTemplate.update(ADVANCE_NEXT_ID, (long) blocks * Material.ID_BLOCK_SIZE, Material.ID_SEGMENT);
+            return stored;
+        });
+        if (value == null) {
+            throw new IllegalStateException("No id block for segment: " + Material.ID_SEGMENT);
+        }
+        return value + 1;
+    }
+
+    private void requireMySql() {
+        if (supported == null) {
+            supported = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    supportsRowAlias(connection.getMetaData()));
+        }
+        if (!Boolean.TRUE.equals(supported)) {
+            throw new IllegalStateException("Material upserts require MySQL 8.0.19 or later");
+        }
+    }
+
+    static boolean supportsRowAlias(DatabaseMetaData metaData) throws SQLException {
+        if (!"MySQL".equalsIgnoreCase(metaData.getDatabaseProductName())) {
+            return false;
+        }
+        Matcher version = VERSION.matcher(metaData.getDatabaseProductVersion());
+        if (!version.find()) {
+            return false;
+        }
+        int major = Integer.parseInt(version.group(1));
+        int minor = Integer.parseInt(version.group(2));
+        int patch = Integer.parseInt(version.group(3));
+        return major > 8 || (major == 8 && (minor > 0 || patch >= 19));
+    }
+}
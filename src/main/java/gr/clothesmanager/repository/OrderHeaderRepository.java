@@ -0,0 +1,9 @@
+package gr.clothesmanager.repository;
+
+import gr.clothesmanager.model.OrderHeader;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderHeaderRepository extends JpaRepository<OrderHeader, Long> {
+}
@@ -1,15 +1,28 @@
 package gr.clothesmanager.repository;
 
 
+import gr.clothesmanager.core.enums.OrderStatus;
+import gr.clothesmanager.dto.OrderView;
 import gr.clothesmanager.model.Order;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Date;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -17,21 +30,126 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT COUNT(o) FROM Order o")
     long countOrders();
 
-    @Query("SELECT o FROM Order o " +
+    long countByDateOfOrder(Date dateOfOrder);
+
+    // status changes take the row lock first so they serialize with the reservation sweeper
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.orderStatus = :to WHERE o.id = :id AND o.orderStatus = :from")
+    int updateStatusIf(@Param("id") Long id, @Param("from") OrderStatus from, @Param("to") OrderStatus to);
+
+    // order id, material id, store id, quantity
+    @Query("SELECT o.id, o.material.id, o.store.id, o.quantity FROM Order o WHERE o.id IN :ids")
+    List<Object[]> findStockFieldsByIds(@Param("ids") Collection<Long> ids);
+
+    // list/detail reads go through OrderView: one statement per page, no lazy loading
+    @Query(OrderView.SELECT + "WHERE o.id = :id")
+    Optional<OrderView> findViewById(@Param("id") Long id);
+
+    @Query(OrderView.SELECT + "WHERE (:storeId IS NULL OR o.store.id = :storeId)")
+    List<OrderView> findViewsByStoreId(@Param("storeId") Long storeId);
+
+    @Query(value = OrderView.SELECT +
+            "WHERE (:storeId IS NULL OR o.store.id = :storeId) " +
+            "AND (:userId IS NULL OR o.user.id = :userId) " +
+            "AND (:materialText IS NULL OR m.searchKey LIKE CONCAT('%', :materialText, '%')) " +
+            "AND (:sizeName IS NULL OR LOWER(sz.name) LIKE LOWER(CONCAT('%', :sizeName, '%')))",
+            countQuery = "SELECT COUNT(o) FROM Order o " +
+            "WHERE (:storeId IS NULL OR o.store.id = :storeId) " +
+            "AND (:userId IS NULL OR o.user.id = :userId) " +
+            "AND (:materialText IS NULL OR o.material.searchKey LIKE CONCAT('%', :materialText, '%')) " +
+            "AND (:sizeName IS NULL OR LOWER(o.size.name) LIKE LOWER(CONCAT('%', :sizeName, '%')))")
+    Page<OrderView> findAllByFilters(@Param("storeId") Long storeId,
+                                     @Param("userId") Long userId,
+                                     @Param("materialText") String materialText,
+                                     @Param("sizeName") String sizeName,
+                                     Pageable pageable);
+
+    @Query(OrderView.SELECT +
             "WHERE (:storeId IS NULL OR o.store.id = :storeId) " +
+            "AND (:materialText IS NULL OR m.searchKey LIKE CONCAT('%', :materialText, '%')) " +
+            "AND (:sizeName IS NULL OR LOWER(sz.name) LIKE LOWER(CONCAT('%', :sizeName, '%'))) " +
+            "AND (:afterId IS NULL OR o.id > :afterId) " +
+            "ORDER BY o.id")
+    List<OrderView> findNextByFilters(@Param("storeId") Long storeId,
+                                      @Param("materialText") String materialText,
+                                      @Param("sizeName") String sizeName,
+                                      @Param("afterId") Long afterId,
+                                      Limit limit);
+
+    @Query("SELECT COUNT(o) FROM Order o " +
+            "WHERE (:storeId IS NULL OR o.store.id = :storeId) " +
+            "AND (:materialText IS NULL OR o.material.searchKey LIKE CONCAT('%', :materialText, '%')) " +
+            "AND (:sizeName IS NULL OR LOWER(o.size.name) LIKE LOWER(CONCAT('%', :sizeName, '%')))")
+    long countByFilters(@Param("storeId") Long storeId,
+                        @Param("materialText") String materialText,
+                        @Param("sizeName") String sizeName);
+
+    // full-text variants of the filters above, :phrase comes from FulltextQuery.phrase
+    @Query(value = OrderView.SELECT +
+            "WHERE function('match_against', m.searchKey, :phrase) > 0 " +
+            "AND (:storeId IS NULL OR o.store.id = :storeId) " +
+            "AND (:userId IS NULL OR o.user.id = :userId) " +
+            "AND (:sizeName IS NULL OR LOWER(sz.name) LIKE LOWER(CONCAT('%', :sizeName, '%')))",
+            countQuery = "SELECT COUNT(o) FROM Order o " +
+            "WHERE function('match_against', o.material.searchKey, :phrase) > 0 " +
+            "AND (:storeId IS NULL OR o.store.id = :storeId) " +
             "AND (:userId IS NULL OR o.user.id = :userId) " +
-            "AND (:materialText IS NULL OR LOWER(o.material.text) LIKE LOWER(CONCAT('%', :materialText, '%'))) " +
             "AND (:sizeName IS NULL OR LOWER(o.size.name) LIKE LOWER(CONCAT('%', :sizeName, '%')))")
-    Page<Order> findAllByFilters(@Param("storeId") Long storeId,
-                                 @Param("userId") Long userId,
-                                 @Param("materialText") String materialText,
-                                 @Param("sizeName") String sizeName,
-                                 Pageable pageable);
+    Page<OrderView> searchAllByFilters(@Param("storeId") Long storeId,
+                                       @Param("userId") Long userId,
+                                       @Param("phrase") String phrase,
+                                       @Param("sizeName") String sizeName,
+                                       Pageable pageable);
+
+    @Query(OrderView.SELECT +
+            "WHERE function('match_against', m.searchKey, :phrase) > 0 " +
+            "AND (:storeId IS NULL OR o.store.id = :storeId) " +
+            "AND (:sizeName IS NULL OR LOWER(sz.name) LIKE LOWER(CONCAT('%', :sizeName, '%'))) " +
+            "AND (:afterId IS NULL OR o.id > :afterId) " +
+            "ORDER BY o.id")
+    List<OrderView> searchNextByFilters(@Param("storeId") Long storeId,
+                                        @Param("phrase") String phrase,
+                                        @Param("sizeName") String sizeName,
+                                        @Param("afterId") Long afterId,
+                                        Limit limit);
+
+    @Query("SELECT COUNT(o) FROM Order o " +
+            "WHERE function('match_against', o.material.searchKey, :phrase) > 0 " +
+            "AND (:storeId IS NULL OR o.store.id = :storeId) " +
+            "AND (:sizeName IS NULL OR LOWER(o.size.name) LIKE LOWER(CONCAT('%', :sizeName, '%')))")
+    long countSearchByFilters(@Param("storeId") Long storeId,
+                              @Param("phrase") String phrase,
+                              @Param("sizeName") String sizeName);
+
+    // forward-only export stream; MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the result
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(OrderView.SELECT +
+            "WHERE (:storeId IS NULL OR o.store.id = :storeId) " +
+            "AND (:from IS NULL OR o.dateOfOrder >= :from) " +
+            "AND (:to IS NULL OR o.dateOfOrder <= :to) " +
+            "ORDER BY o.id")
+    Stream<OrderView> streamViewsForExport(@Param("storeId") Long storeId,
+                                           @Param("from") Date from,
+                                           @Param("to") Date to);
+
+    // [store id, order id] / [store id, count] rows for the store ?include= expansions
+    @Query("SELECT o.store.id, o.id FROM Order o WHERE o.store.id IN :storeIds ORDER BY o.id")
+    List<Object[]> findIdsByStoreIds(@Param("storeIds") Collection<Long> storeIds);
+
+    @Query("SELECT o.store.id, COUNT(o) FROM Order o WHERE o.store.id IN :storeIds GROUP BY o.store.id")
+    List<Object[]> countByStoreIds(@Param("storeIds") Collection<Long> storeIds);
 
-    @Query("SELECT o FROM Order o WHERE o.store.id = :storeId")
-    List<Order> findByStoreId(@Param("storeId") Long storeId);
+    @Query("SELECT o.user.id, COUNT(o) FROM Order o WHERE o.user.id IN :userIds GROUP BY o.user.id")
+    List<Object[]> countByUserIds(@Param("userIds") Collection<Long> userIds);
 
     boolean existsByStoreId(Long storeId);
 
     boolean existsByMaterialId(Long materialId);
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package gr.clothesmanager.repository;
+
+import gr.clothesmanager.model.StockLevelRule;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface StockLevelRuleRepository extends JpaRepository<StockLevelRule, Long> {
+
+    List<StockLevelRule> findByStoreIdOrderById(Long storeId);
+
+    List<StockLevelRule> findByStoreIdIn(Collection<Long> storeIds);
+
+    // store id, search key, size id, min, max, text: everything the planner needs, no entities;
+    // streamed (MySQL fetch size MIN_VALUE) like MaterialRepository.streamStockBySku
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r.storeId, r.searchKey, r.sizeId, r.minLevel, r.maxLevel, r.text FROM StockLevelRule r")
+    Stream<Object[]> streamAllLevels();
+}
@@ -0,0 +1,64 @@
+package gr.clothesmanager.repository;
+
+import gr.clothesmanager.model.StockMovement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    // material id, store id, sum of deltas before :to that the given snapshot does not include
+    // (not picked up yet, or picked up by a later one); snapshotAt = null means every movement.
+    // Only bounded when snapshotAt is the latest snapshot, older ones go through the queries below
+    @Query("SELECT sm.materialId, sm.storeId, SUM(sm.delta) FROM StockMovement sm " +
+            "WHERE (:snapshotAt IS NULL OR sm.snapshotAt IS NULL OR sm.snapshotAt > :snapshotAt) " +
+            "AND sm.occurredAt < :to " +
+            "AND (:storeId IS NULL OR sm.storeId = :storeId) " +
+            "GROUP BY sm.materialId, sm.storeId")
+    List<Object[]> sumNotInSnapshot(@Param("snapshotAt") Instant snapshotAt,
+                                    @Param("to") Instant to,
+                                    @Param("storeId") Long storeId);
+
+    // as of :before, between the snapshots on either side of it: what runs after :after up to :upTo marked
+    // (:after = null: from the first run); one snapshot interval of the (snapshot_at, occurred_at) index
+    @Query("SELECT sm.materialId, sm.storeId, SUM(sm.delta) FROM StockMovement sm " +
+            "WHERE (:after IS NULL OR sm.snapshotAt > :after) AND sm.snapshotAt <= :upTo " +
+            "AND sm.occurredAt < :before " +
+            "AND (:storeId IS NULL OR sm.storeId = :storeId) " +
+            "GROUP BY sm.materialId, sm.storeId")
+    List<Object[]> sumMarkedBetween(@Param("after") Instant after,
+                                    @Param("upTo") Instant upTo,
+                                    @Param("before") Instant before,
+                                    @Param("storeId") Long storeId);
+
+    // late commits: occurred before :before but only picked up by a run after :after; one index probe per
+    // later run (distinct snapshot_at) rather than a scan of every later movement
+    @Query("SELECT sm.materialId, sm.storeId, SUM(sm.delta) FROM StockMovement sm " +
+            "WHERE sm.snapshotAt IN (SELECT DISTINCT m.snapshotAt FROM StockMovement m WHERE m.snapshotAt > :after) " +
+            "AND sm.occurredAt < :before " +
+            "AND (:storeId IS NULL OR sm.storeId = :storeId) " +
+            "GROUP BY sm.materialId, sm.storeId")
+    List<Object[]> sumMarkedAfter(@Param("after") Instant after,
+                                  @Param("before") Instant before,
+                                  @Param("storeId") Long storeId);
+
+    @Query("SELECT sm.materialId, sm.storeId, SUM(sm.delta) FROM StockMovement sm " +
+            "WHERE sm.snapshotAt IS NULL AND sm.occurredAt < :before " +
+            "AND (:storeId IS NULL OR sm.storeId = :storeId) " +
+            "GROUP BY sm.materialId, sm.storeId")
+    List<Object[]> sumUnmarked(@Param("before") Instant before, @Param("storeId") Long storeId);
+
+    // a locking scan: waits for in-flight inserts it meets, later commits stay null for the next snapshot
+    @Modifying
+    @Query("UPDATE StockMovement sm SET sm.snapshotAt = :snapshotAt " +
+            "WHERE sm.snapshotAt IS NULL AND sm.occurredAt < :snapshotAt")
+    int markInSnapshot(@Param("snapshotAt") Instant snapshotAt);
+
+    boolean existsBySnapshotAtIsNotNull();
+}
@@ -0,0 +1,36 @@
+package gr.clothesmanager.repository;
+
+import gr.clothesmanager.core.enums.OrderStatus;
+import gr.clothesmanager.model.StockReservation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.orderId = :orderId")
+    int deleteByOrderId(@Param("orderId") Long orderId);
+
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // PENDING orders from before reservations existed (or restored from a backup without them)
+    @Query("SELECT o.id FROM Order o WHERE o.orderStatus = :status " +
+            "AND NOT EXISTS (SELECT r.id FROM StockReservation r WHERE r.orderId = o.id) ORDER BY o.id")
+    List<Long> findOrderIdsWithoutReservation(@Param("status") OrderStatus status, Limit limit);
+
+    // oldest expired first, straight off the expires_at index; rows another sweeper holds are skipped
+    @Query(value = "SELECT id, order_id FROM stock_reservations WHERE expires_at <= :now " +
+            "ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Object[]> lockExpired(@Param("now") Instant now, @Param("limit") int limit);
+}
@@ -0,0 +1,29 @@
+package gr.clothesmanager.repository;
+
+import gr.clothesmanager.model.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    @Query("SELECT MAX(s.takenAt) FROM StockSnapshot s WHERE s.takenAt <= :at")
+    Optional<Instant> findLatestTakenAt(@Param("at") Instant at);
+
+    @Query("SELECT MIN(s.takenAt) FROM StockSnapshot s WHERE s.takenAt > :at")
+    Optional<Instant> findEarliestTakenAtAfter(@Param("at") Instant at);
+
+    @Query("SELECT MAX(s.takenAt) FROM StockSnapshot s")
+    Optional<Instant> findLatestTakenAt();
+
+    // material id, store id, quantity
+    @Query("SELECT s.materialId, s.storeId, s.quantity FROM StockSnapshot s " +
+            "WHERE s.takenAt = :takenAt AND (:storeId IS NULL OR s.storeId = :storeId)")
+    List<Object[]> findQuantities(@Param("takenAt") Instant takenAt, @Param("storeId") Long storeId);
+}
@@ -2,11 +2,16 @@ package gr.clothesmanager.repository;
 
 import gr.clothesmanager.core.enums.Status;
 import gr.clothesmanager.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,8 +27,44 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles WHERE u.store.id = :storeId")
     List<User> findByStoreIdWithRoles(@Param("storeId") Long storeId);
 
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles LEFT JOIN FETCH u.store")
+    List<User> findAllWithRolesAndStore();
+
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles LEFT JOIN FETCH u.store WHERE u.id IN :ids")
+    List<User> findAllWithRolesAndStoreByIdIn(@Param("ids") Collection<Long> ids);
+
+    // directory page: ids only, so the fetch join above is never combined with LIMIT
+    @Query(value = "SELECT u.id FROM User u " +
+            "WHERE (:storeId IS NULL OR u.store.id = :storeId) " +
+            "AND (:username IS NULL OR LOWER(u.username) LIKE LOWER(CONCAT('%', :username, '%'))) " +
+            "AND (:status IS NULL OR u.status = :status) " +
+            "AND (:roleName IS NULL OR EXISTS (SELECT r.id FROM User ur JOIN ur.roles r WHERE ur = u AND r.name = :roleName))",
+            countQuery = "SELECT COUNT(u) FROM User u " +
+            "WHERE (:storeId IS NULL OR u.store.id = :storeId) " +
+            "AND (:username IS NULL OR LOWER(u.username) LIKE LOWER(CONCAT('%', :username, '%'))) " +
+            "AND (:status IS NULL OR u.status = :status) " +
+            "AND (:roleName IS NULL OR EXISTS (SELECT r.id FROM User ur JOIN ur.roles r WHERE ur = u AND r.name = :roleName))")
+    Page<Long> findIdsByFilters(@Param("storeId") Long storeId,
+                                @Param("username") String username,
+                                @Param("status") Status status,
+                                @Param("roleName") String roleName,
+                                Pageable pageable);
+
     Optional<User> findByUsername(String username);
 
+    // [username, security version] for token revocation; runs in a read-write transaction of its own so it
+    // is never served by the replica, not even when called from a read-only one, where it would lag behind
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("SELECT u.username, COALESCE(u.securityVersion, 0) FROM User u WHERE u.id = :id")
+    List<Object[]> findUsernameAndSecurityVersionById(@Param("id") Long id);
+
+    // [store id, user id] / [store id, count] rows for the store ?include= expansions
+    @Query("SELECT u.store.id, u.id FROM User u WHERE u.store.id IN :storeIds ORDER BY u.id")
+    List<Object[]> findIdsByStoreIds(@Param("storeIds") Collection<Long> storeIds);
+
+    @Query("SELECT u.store.id, COUNT(u) FROM User u WHERE u.store.id IN :storeIds GROUP BY u.store.id")
+    List<Object[]> countByStoreIds(@Param("storeIds") Collection<Long> storeIds);
+
     boolean existsByStoreId(Long storeId);
 
     @Query("SELECT COUNT(u) FROM User u WHERE u.status = :status")
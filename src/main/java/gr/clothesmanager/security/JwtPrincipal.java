@@ -0,0 +1,54 @@
+package gr.clothesmanager.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+// Authenticated user as described by the JWT claims, built without touching the database.
+@Getter
+public class JwtPrincipal implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final Long storeId;
+    private final List<String> roles;
+    private final List<GrantedAuthority> authorities;
+
+    public JwtPrincipal(Long id, String username, Long storeId, List<String> roles) {
+        this.id = id;
+        this.username = username;
+        this.storeId = storeId;
+        this.roles = roles != null ? List.copyOf(roles) : List.of();
+        this.authorities = this.roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
+    }
+
+    public boolean hasRole(String role) {
+        return roles.stream().anyMatch(r -> r.equalsIgnoreCase(role));
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "JwtPrincipal{" +
+                "id=" + id +
+                ", username='" + username + '\'' +
+                ", storeId=" + storeId +
+                ", roles=" + roles +
+                '}';
+    }
+}
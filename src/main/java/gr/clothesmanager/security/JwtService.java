@@ -1,70 +1,81 @@
 package gr.clothesmanager.security;
 
+import gr.clothesmanager.model.User;
+import gr.clothesmanager.model.UserRole;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class JwtService {
 
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_STORE_ID = "sid";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_VERSION = "ver";
+
     @Value("${application.security.jwt.secret-key}")
     private String secretKey;
 
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
-    public String extractId(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
+    private Key signInKey;
+    private JwtParser parser;
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    public boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    // the key and the parser are immutable and thread-safe, build them once
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        signInKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // single parse: verifies signature and expiration and returns the claims
+    public Claims verify(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
+    public String generateToken(User user) {
+        List<String> roles = user.getRoles() != null
+                ? user.getRoles().stream().map(UserRole::getName).toList()
+                : List.of();
 
-    public String generateToken(String userId) {
         return Jwts.builder()
-                .setSubject(userId)
+                .setSubject(user.getUsername())
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_STORE_ID, user.getStore() != null ? user.getStore().getId() : null)
+                .claim(CLAIM_ROLES, roles)
+                .claim(CLAIM_VERSION, user.getSecurityVersion() != null ? user.getSecurityVersion() : 0)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public boolean isTokenValid(String token, String userId) {
-        final String tokenUserId = extractId(token);
-        return (tokenUserId.equals(userId) && !isTokenExpired(token));
+    @SuppressWarnings("unchecked")
+    public JwtPrincipal toPrincipal(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        Number storeId = claims.get(CLAIM_STORE_ID, Number.class);
+        return new JwtPrincipal(
+                userId != null ? userId.longValue() : null,
+                claims.getSubject(),
+                storeId != null ? storeId.longValue() : null,
+                claims.get(CLAIM_ROLES, List.class)
+        );
     }
 }
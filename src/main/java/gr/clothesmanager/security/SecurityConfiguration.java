@@ -1,6 +1,7 @@
 package gr.clothesmanager.security;
 
-import gr.clothesmanager.repository.UserRepository;
+import gr.clothesmanager.core.SetupState;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -36,15 +37,15 @@ public class SecurityConfiguration {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final AuthenticationProvider authenticationProvider;
-    private final UserRepository userRepository;
+    private final SetupState setupState;
 
     public SecurityConfiguration(
             JwtAuthenticationFilter jwtAuthenticationFilter,
             AuthenticationProvider authenticationProvider,
-            UserRepository userRepository) {
+            SetupState setupState) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
         this.authenticationProvider = authenticationProvider;
-        this.userRepository = userRepository;
+        this.setupState = setupState;
     }
 
     @Bean
@@ -53,6 +54,8 @@ public class SecurityConfiguration {
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
+                        // the original request was already authorized; streamed bodies (order export) finish on an async dispatch
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/setup/status").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/setup").permitAll()
@@ -99,7 +102,7 @@ public class SecurityConfiguration {
                     return;
                 }
 
-                if (userRepository.count() == 0) {
+                if (!setupState.isCompleted()) {
                     response.setStatus(HttpServletResponse.SC_FORBIDDEN);
                     response.setContentType("application/json");
                     response.getWriter().write("{\"error\": \"Setup required\", \"setupRequired\": true}");
@@ -0,0 +1,72 @@
+package gr.clothesmanager.security;
+
+import gr.clothesmanager.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user security versions used to revoke issued tokens (password change, status toggle,
+ * role change, deletion). Entries are keyed by user id and also pin the username, so a token of a
+ * deleted account never matches a new account created with the same username.
+ * Entries are re-read from the database after {@code jwt.version-cache-ttl}
+ * so revocations made on another node are picked up without a query on every request.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenVersionRegistry {
+
+    private static final int UNKNOWN_USER = -1;
+
+    private final UserRepository userRepository;
+    private final Map<Long, CachedVersion> versions = new ConcurrentHashMap<>();
+
+    @Value("${jwt.version-cache-ttl:60000}")
+    private long cacheTtlMillis;
+
+    public boolean isCurrent(Long userId, String username, Integer tokenVersion) {
+        if (userId == null || username == null || tokenVersion == null) {
+            return false;
+        }
+        CachedVersion current = current(userId);
+        return current.version() != UNKNOWN_USER
+                && current.version() == tokenVersion
+                && username.equals(current.username());
+    }
+
+    private CachedVersion current(Long userId) {
+        long now = System.currentTimeMillis();
+        CachedVersion cached = versions.get(userId);
+        if (cached == null || now - cached.loadedAt() > cacheTtlMillis) {
+            List<Object[]> rows = userRepository.findUsernameAndSecurityVersionById(userId);
+            cached = rows.isEmpty()
+                    ? new CachedVersion(null, UNKNOWN_USER, now)
+                    : new CachedVersion((String) rows.get(0)[0], ((Number) rows.get(0)[1]).intValue(), now);
+            versions.put(userId, cached);
+        }
+        return cached;
+    }
+
+    // drops the cached version once the surrounding transaction (if any) has committed
+    public void evict(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.remove(userId);
+                }
+            });
+        } else {
+            versions.remove(userId);
+        }
+    }
+
+    private record CachedVersion(String username, int version, long loadedAt) {
+    }
+}
@@ -0,0 +1,188 @@
+package gr.clothesmanager.service;
+
+import gr.clothesmanager.core.enums.Status;
+import gr.clothesmanager.repository.*;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory dashboard figures. Services report creates/deletes/stock changes, which are applied
+ * only after their transaction commits; a scheduled reconciliation recounts everything from the
+ * database to correct drift (changes made on other nodes, paths that do not report, races with
+ * a running reconciliation).
+ */
+@Component
+@RequiredArgsConstructor
+public class DashboardCounters {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DashboardCounters.class);
+
+    private final UserRepository userRepository;
+    private final MaterialRepository materialRepository;
+    private final MaterialStockStripeRepository stripeRepository;
+    private final SizeRepository sizeRepository;
+    private final OrderRepository orderRepository;
+    private final StoreRepository storeRepository;
+
+    private final AtomicLong activeUsers = new AtomicLong();
+    private final AtomicLong materials = new AtomicLong();
+    private final AtomicLong sizes = new AtomicLong();
+    private final AtomicLong orders = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final Map<Long, AtomicLong> stockByStore = new ConcurrentHashMap<>();
+    private final AtomicReference<DayCount> ordersToday = new AtomicReference<>(new DayCount(LocalDate.now(), new AtomicLong()));
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${dashboard.reconcile-interval:300000}",
+            fixedDelayString = "${dashboard.reconcile-interval:300000}")
+    public void reconcile() {
+        LocalDate today = LocalDate.now();
+
+        activeUsers.set(userRepository.countActiveUsersForDashboard(Status.ACTIVE));
+        materials.set(materialRepository.countMaterials());
+        sizes.set(sizeRepository.countSizes());
+        orders.set(orderRepository.countOrders());
+        stores.set(storeRepository.countStores());
+        ordersToday.set(new DayCount(today, new AtomicLong(orderRepository.countByDateOfOrder(Date.valueOf(today)))));
+
+        Map<Long, Long> stock = new ConcurrentHashMap<>();
+        addTotals(stock, materialRepository.sumQuantityByStore());
+        addTotals(stock, stripeRepository.sumQuantityByStore());
+        stockByStore.keySet().retainAll(stock.keySet());
+        stock.forEach((storeId, total) -> stockByStore.computeIfAbsent(storeId, id -> new AtomicLong()).set(total));
+
+        LOGGER.debug("Dashboard counters reconciled");
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<Long, Long> stock = new TreeMap<>();
+        stockByStore.forEach((storeId, total) -> stock.put(storeId, total.get()));
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("user", activeUsers.get());
+        data.put("materials", materials.get());
+        data.put("sizes", sizes.get());
+        data.put("orders", orders.get());
+        data.put("stores", stores.get());
+        data.put("ordersToday", today().count().get());
+        data.put("storeStock", stock);
+        return data;
+    }
+
+    public void orderCreated(Long storeId, Date dateOfOrder, int quantity) {
+        afterCommit(() -> {
+            orders.incrementAndGet();
+            countToday(dateOfOrder, 1);
+            addStock(storeId, -quantity);
+        });
+    }
+
+    public void orderDeleted(Date dateOfOrder) {
+        afterCommit(() -> {
+            orders.decrementAndGet();
+            countToday(dateOfOrder, -1);
+        });
+    }
+
+    public void materialCreated(Long storeId, int quantity) {
+        afterCommit(() -> {
+            materials.incrementAndGet();
+            addStock(storeId, quantity);
+        });
+    }
+
+    public void materialDeleted(Long storeId, int quantity) {
+        afterCommit(() -> {
+            materials.decrementAndGet();
+            addStock(storeId, -quantity);
+        });
+    }
+
+    public void stockChanged(Long storeId, int delta) {
+        if (delta != 0) {
+            afterCommit(() -> addStock(storeId, delta));
+        }
+    }
+
+    public void sizeCreated() {
+        afterCommit(sizes::incrementAndGet);
+    }
+
+    public void storeCreated() {
+        afterCommit(stores::incrementAndGet);
+    }
+
+    public void storeDeleted(Long storeId) {
+        afterCommit(() -> {
+            stores.decrementAndGet();
+            stockByStore.remove(storeId);
+        });
+    }
+
+    public void userStatusChanged(Status from, Status to) {
+        int delta = (to == Status.ACTIVE ? 1 : 0) - (from == Status.ACTIVE ? 1 : 0);
+        if (delta != 0) {
+            afterCommit(() -> activeUsers.addAndGet(delta));
+        }
+    }
+
+    private void addStock(Long storeId, long delta) {
+        if (storeId != null) {
+            stockByStore.computeIfAbsent(storeId, id -> new AtomicLong()).addAndGet(delta);
+        }
+    }
+
+    private void countToday(Date dateOfOrder, int delta) {
+        DayCount day = today();
+        if (dateOfOrder != null && dateOfOrder.toLocalDate().equals(day.day())) {
+            day.count().addAndGet(delta);
+        }
+    }
+
+    // the first read or write after midnight starts the new day at zero; only one caller swaps it in
+    private DayCount today() {
+        LocalDate now = LocalDate.now();
+        return ordersToday.updateAndGet(day -> day.day().equals(now) ? day : new DayCount(now, new AtomicLong()));
+    }
+
+    private static void addTotals(Map<Long, Long> totals, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            if (row[0] != null && row[1] != null) {
+                totals.merge((Long) row[0], ((Number) row[1]).longValue(), Long::sum);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private record DayCount(LocalDate day, AtomicLong count) {
+    }
+}
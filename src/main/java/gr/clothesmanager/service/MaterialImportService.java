@@ -0,0 +1,371 @@
+package gr.clothesmanager.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.clothesmanager.auth.CurrentUserContext;
+import gr.clothesmanager.common.SearchKey;
+import gr.clothesmanager.core.enums.ImportMode;
+import gr.clothesmanager.core.enums.MovementType;
+import gr.clothesmanager.dto.ImportReportDTO;
+import gr.clothesmanager.dto.SizeDTO;
+import gr.clothesmanager.model.Material;
+import gr.clothesmanager.model.Store;
+import gr.clothesmanager.repository.MaterialRepository;
+import gr.clothesmanager.repository.SizeRepository;
+import gr.clothesmanager.repository.StoreRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk material import from CSV (header: text,quantity,sizeId|sizeName,storeId) or NDJSON
+ * (one object per line with the same fields). The body is read line by line and written in
+ * chunks, each chunk in its own transaction, so memory use does not depend on the file size.
+ * Rows upsert on (text, store, size) using the normalized search key.
+ */
+@Service
+@RequiredArgsConstructor
+public class MaterialImportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MaterialImportService.class);
+
+    public static final int MAX_CHUNK_SIZE = 5000;
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final MaterialRepository materialRepository;
+    private final SizeRepository sizeRepository;
+    private final StoreRepository storeRepository;
+    private final SizeRegistry sizeRegistry;
+    private final StockService stockService;
+    private final DashboardCounters dashboardCounters;
+    private final StockLedger stockLedger;
+    private final CurrentUserContext currentUserContext;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${materials.import.chunk-size:500}")
+    private int defaultChunkSize;
+
+    @Value("${materials.import.max-errors:1000}")
+    private int defaultMaxErrors;
+
+    public ImportReportDTO importMaterials(InputStream body, String format, ImportMode mode,
+                                           Integer chunkSize, Integer maxErrors) throws IOException {
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        if (!ndjson && !"csv".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("INVALID_IMPORT_FORMAT");
+        }
+        int chunk = Math.min(Math.max(chunkSize != null ? chunkSize : defaultChunkSize, 1), MAX_CHUNK_SIZE);
+        // a store-less non-super-admin is refused before any row is read; null means unrestricted below
+        Long restrictedStoreId = currentUserContext.isSuperAdmin() ? null : currentUserContext.requireScopedStoreId();
+
+        ImportContext context = new ImportContext(
+                mode != null ? mode : ImportMode.REPLACE,
+                maxErrors != null ? maxErrors : defaultMaxErrors,
+                restrictedStoreId,
+                storeRepository.findAll().stream().map(Store::getId).collect(Collectors.toSet()),
+                sizeRegistry.findAll().stream().collect(Collectors.toMap(
+                        size -> size.getName().trim().toUpperCase(Locale.ROOT), SizeDTO::getId, (a, b) -> a)));
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            Map<String, Integer> header = null;
+            List<ImportRow> pending = new ArrayList<>(chunk);
+            long lineNumber = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (!ndjson && header == null) {
+                    header = parseHeader(line);
+                    continue;
+                }
+
+                context.report.setTotalRows(context.report.getTotalRows() + 1);
+                try {
+                    ImportRow row = ndjson ? parseJson(lineNumber, line) : parseCsv(lineNumber, line, header);
+                    pending.add(validate(row, context));
+                } catch (IllegalArgumentException ex) {
+                    context.fail(lineNumber, ex.getMessage());
+                }
+
+                if (pending.size() >= chunk) {
+                    writeChunk(pending, context);
+                    pending.clear();
+                }
+            }
+            if (!pending.isEmpty()) {
+                writeChunk(pending, context);
+            }
+        }
+
+        ImportReportDTO report = context.report;
+        LOGGER.info("Material import finished: {} rows, {} created, {} updated, {} failed",
+                report.getTotalRows(), report.getCreated(), report.getUpdated(), report.getFailed());
+        return report;
+    }
+
+    private void writeChunk(List<ImportRow> rows, ImportContext context) {
+        try {
+            int[] counts = transactionTemplate.execute(status -> upsert(rows, context.mode));
+            context.report.setCreated(context.report.getCreated() + counts[0]);
+            context.report.setUpdated(context.report.getUpdated() + counts[1]);
+        } catch (RuntimeException ex) {
+            // the whole chunk was rolled back
+            LOGGER.warn("Material import chunk failed: {}", ex.getMessage());
+            rows.forEach(row -> context.fail(row.line(), "CHUNK_FAILED"));
+        }
+    }
+
+    // returns {created, updated}
+    private int[] upsert(List<ImportRow> rows, ImportMode mode) {
+        Set<String> keys = rows.stream().map(ImportRow::searchKey).collect(Collectors.toSet());
+        Set<Long> storeIds = rows.stream().map(ImportRow::storeId).collect(Collectors.toSet());
+
+        Map<MaterialKey, Material> materials = new HashMap<>();
+        for (Material material : materialRepository.findBySearchKeysAndStoreIds(keys, storeIds)) {
+            materials.putIfAbsent(new MaterialKey(material.getSearchKey(), material.getStore().getId(),
+                    material.getSize().getId()), material);
+        }
+
+        // REPLACE takes its delta from the locked stock, not from the rows read above;
+        // materials are locked in ascending id order like every other multi-material write
+        Map<Long, Integer> lockedQuantities = new HashMap<>();
+        if (mode == ImportMode.REPLACE) {
+            rows.stream()
+                    .map(row -> materials.get(new MaterialKey(row.searchKey(), row.storeId(), row.sizeId())))
+                    .filter(Objects::nonNull)
+                    .map(Material::getId)
+                    .distinct()
+                    .sorted()
+                    .forEach(id -> lockedQuantities.put(id, stockService.lockAvailable(id)
+                            .orElseThrow(() -> new RuntimeException("MATERIAL_NOT_FOUND"))));
+        }
+
+        List<Material> created = new ArrayList<>();
+        int updated = 0;
+        for (ImportRow row : rows) {
+            MaterialKey key = new MaterialKey(row.searchKey(), row.storeId(), row.sizeId());
+            Material material = materials.get(key);
+
+            if (material == null) {
+                material = new Material(row.text(), row.quantity(),
+                        sizeRepository.getReferenceById(row.sizeId()),
+                        storeRepository.getReferenceById(row.storeId()));
+                materials.put(key, material);
+                created.add(material);
+                continue;
+            }
+
+            if (material.getId() == null) {
+                // same material twice in one chunk, still unsaved
+                material.setQuantity(mode == ImportMode.ADD ? material.getQuantity() + row.quantity() : row.quantity());
+                continue;
+            }
+
+            updated++;
+            int delta;
+            if (mode == ImportMode.ADD) {
+                delta = row.quantity();
+                stockService.increment(material.getId(), row.quantity());
+            } else {
+                delta = row.quantity() - lockedQuantities.put(material.getId(), row.quantity());
+                if (material.isStriped()) {
+                    stockService.replaceQuantity(material.getId(), row.quantity());
+                } else {
+                    material.setQuantity(row.quantity());
+                }
+            }
+            dashboardCounters.stockChanged(row.storeId(), delta);
+            stockLedger.record(material.getId(), row.storeId(), MovementType.ADJUST, delta);
+        }
+
+        materialRepository.saveAll(created);
+        created.forEach(material -> {
+            dashboardCounters.materialCreated(material.getStore().getId(), material.getQuantity());
+            stockLedger.record(material.getId(), material.getStore().getId(), MovementType.ADJUST, material.getQuantity());
+        });
+        return new int[]{created.size(), updated};
+    }
+
+    private ImportRow validate(ImportRow row, ImportContext context) {
+        if (row.text() == null || row.text().isBlank()) {
+            throw new IllegalArgumentException("TEXT_REQUIRED");
+        }
+        if (row.text().length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("TEXT_TOO_LONG");
+        }
+        if (row.quantity() == null || row.quantity() < 0) {
+            throw new IllegalArgumentException("INVALID_QUANTITY");
+        }
+
+        Long sizeId = row.sizeId();
+        if (sizeId == null && row.sizeName() != null) {
+            sizeId = context.sizeIdsByName.get(row.sizeName().trim().toUpperCase(Locale.ROOT));
+        }
+        if (sizeId == null || sizeRegistry.findById(sizeId).isEmpty()) {
+            throw new IllegalArgumentException("SIZE_NOT_FOUND");
+        }
+
+        if (row.storeId() == null || !context.storeIds.contains(row.storeId())) {
+            throw new IllegalArgumentException("STORE_NOT_FOUND");
+        }
+        if (context.restrictedStoreId != null && !context.restrictedStoreId.equals(row.storeId())) {
+            throw new IllegalArgumentException("ACCESS_DENIED");
+        }
+
+        String text = row.text().trim();
+        return new ImportRow(row.line(), text, SearchKey.normalize(text), row.quantity(), sizeId, null, row.storeId());
+    }
+
+    private ImportRow parseJson(long line, String json) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(json);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("INVALID_JSON");
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("INVALID_JSON");
+        }
+        return new ImportRow(line,
+                textOf(node, "text"),
+                null,
+                parseInteger(textOf(node, "quantity")),
+                parseLong(textOf(node, "sizeId")),
+                textOf(node, "sizeName"),
+                parseLong(textOf(node, "storeId")));
+    }
+
+    private ImportRow parseCsv(long line, String csv, Map<String, Integer> header) {
+        List<String> values = splitCsv(csv);
+        return new ImportRow(line,
+                column(values, header, "text"),
+                null,
+                parseInteger(column(values, header, "quantity")),
+                parseLong(column(values, header, "sizeid")),
+                column(values, header, "sizename"),
+                parseLong(column(values, header, "storeid")));
+    }
+
+    private Map<String, Integer> parseHeader(String line) {
+        List<String> names = splitCsv(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            header.put(names.get(i).trim().replace("﻿", "").toLowerCase(Locale.ROOT), i);
+        }
+        if (!header.containsKey("text") || !header.containsKey("quantity") || !header.containsKey("storeid")
+                || !(header.containsKey("sizeid") || header.containsKey("sizename"))) {
+            throw new IllegalArgumentException("INVALID_IMPORT_HEADER");
+        }
+        return header;
+    }
+
+    // RFC 4180 style: comma separated, double quotes around fields, "" inside quotes
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static String column(List<String> values, Map<String, Integer> header, String name) {
+        Integer index = header.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String textOf(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static Integer parseInteger(String value) {
+        if (value == null) return null;
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("INVALID_QUANTITY");
+        }
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null) return null;
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("INVALID_ID");
+        }
+    }
+
+    private record ImportRow(long line, String text, String searchKey, Integer quantity,
+                             Long sizeId, String sizeName, Long storeId) {
+    }
+
+    private record MaterialKey(String searchKey, Long storeId, Long sizeId) {
+    }
+
+    private static final class ImportContext {
+        private final ImportMode mode;
+        private final int maxErrors;
+        private final Long restrictedStoreId;
+        private final Set<Long> storeIds;
+        private final Map<String, Long> sizeIdsByName;
+        private final ImportReportDTO report = new ImportReportDTO();
+
+        private ImportContext(ImportMode mode, int maxErrors, Long restrictedStoreId,
+                              Set<Long> storeIds, Map<String, Long> sizeIdsByName) {
+            this.mode = mode;
+            this.maxErrors = maxErrors;
+            this.restrictedStoreId = restrictedStoreId;
+            this.storeIds = storeIds;
+            this.sizeIdsByName = sizeIdsByName;
+        }
+
+        private void fail(long line, String message) {
+            report.setFailed(report.getFailed() + 1);
+            if (report.getErrors().size() < maxErrors) {
+                report.getErrors().add(new ImportReportDTO.RowError(line, message));
+            } else {
+                report.setErrorsTruncated(true);
+            }
+        }
+    }
+}
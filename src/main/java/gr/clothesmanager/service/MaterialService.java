@@ -1,28 +1,40 @@
 package gr.clothesmanager.service;
 
 import gr.clothesmanager.auth.AuthorizationService;
+import gr.clothesmanager.auth.CurrentUserContext;
+import gr.clothesmanager.common.ConstraintViolations;
+import gr.clothesmanager.common.FulltextQuery;
+import gr.clothesmanager.common.PageCursor;
+import gr.clothesmanager.common.SearchKey;
+import gr.clothesmanager.core.SearchIndexInitializer;
+import gr.clothesmanager.core.enums.MovementType;
+import gr.clothesmanager.dto.BulkDistributionDTO;
 import gr.clothesmanager.dto.MaterialDTO;
 import gr.clothesmanager.dto.MaterialDistributionDTO;
-import gr.clothesmanager.dto.UserDTO;
+import gr.clothesmanager.dto.PageResponse;
+import gr.clothesmanager.dto.StockLevelDTO;
 import gr.clothesmanager.model.Material;
 import gr.clothesmanager.model.Store;
 import gr.clothesmanager.repository.MaterialRepository;
+import gr.clothesmanager.repository.MaterialStockStripeRepository;
+import gr.clothesmanager.repository.MaterialUpsertRepository;
 import gr.clothesmanager.repository.OrderRepository;
 import gr.clothesmanager.repository.SizeRepository;
 import gr.clothesmanager.repository.StoreRepository;
 import gr.clothesmanager.service.exceptions.*;
-import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.Optional;
+import java.time.LocalDate;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,19 +47,18 @@ public class MaterialService {
     private final StoreRepository storeRepository;
     private final SizeRepository sizeRepository;
     private final OrderRepository orderRepository;
-    private final UserService userService;
     private final AuthorizationService authorizationService;
+    private final StockService stockService;
+    private final MaterialStockStripeRepository stripeRepository;
+    private final CurrentUserContext currentUserContext;
+    private final DashboardCounters dashboardCounters;
+    private final StockLedger stockLedger;
+    private final MaterialUpsertRepository materialUpsertRepository;
 
     @Transactional
     public MaterialDTO save(MaterialDTO dto) throws MaterialAlreadyExistsException, SizeNotFoundException, StoreNotFoundException {
         LOGGER.info("Saving new material with text: {}", dto.getText());
 
-        // Duplicate (text + store + size) -> 409
-        if (materialRepository.existsByTextAndStoreIdAndSizeId(
-                dto.getText(), dto.getStoreId(), dto.getSizeId())) {
-            throw new MaterialAlreadyExistsException("MATERIAL_ALREADY_EXISTS");
-        }
-
         Material material = dto.toModel();
         material.setText(dto.getText());
         material.setQuantity(dto.getQuantity());
@@ -55,36 +66,52 @@ public class MaterialService {
         material.setSize(sizeRepository.getReferenceById(dto.getSizeId()));
         material.setStore(storeRepository.getReferenceById(dto.getStoreId()));
 
-        material = materialRepository.save(material);
+        // Duplicate (text + store + size) -> 409, enforced by uk_materials_natural_key
+        try {
+            material = materialRepository.saveAndFlush(material);
+        } catch (DataIntegrityViolationException ex) {
+            if (ConstraintViolations.isUniqueKey(ex, SearchIndexInitializer.MATERIAL_NATURAL_KEY)) {
+                throw new MaterialAlreadyExistsException("MATERIAL_ALREADY_EXISTS");
+            }
+            if (ConstraintViolations.isForeignKey(ex, "size_id")) {
+                throw new SizeNotFoundException("SIZE_NOT_FOUND");
+            }
+            if (ConstraintViolations.isForeignKey(ex, "store_id")) {
+                throw new StoreNotFoundException("STORE_NOT_FOUND");
+            }
+            throw ex;
+        }
+        dashboardCounters.materialCreated(dto.getStoreId(), material.getQuantity() != null ? material.getQuantity() : 0);
+        stockLedger.record(material.getId(), dto.getStoreId(), MovementType.ADJUST,
+                material.getQuantity() != null ? material.getQuantity() : 0);
         return MaterialDTO.fromModel(material);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<MaterialDTO> findMaterialsByStoreId(Long storeId) throws UserNotFoundException {
-        UserDTO currentUser = userService.getAuthenticatedUserDetails();
-
         // LOCAL_ADMIN can only access their own store
-        if (currentUser.getRoles().stream().anyMatch(role -> role.getName().equalsIgnoreCase("LOCAL_ADMIN"))) {
-            if (!storeId.equals(currentUser.getStore().getId())) {
+        if (currentUserContext.isLocalAdmin()) {
+            if (!storeId.equals(currentUserContext.requireScopedStoreId())) {
                 throw new AccessDeniedException("ACCESS_DENIED");
             }
         }
 
         List<Material> materials = materialRepository.findByStoreId(storeId);
         return materials.stream()
-                .map(material -> new MaterialDTO(
-                        material.getId(),
-                        material.getText(),
-                        material.getQuantity(),
-                        material.getSize().getId(),
-                        material.getSize().getName(),
-                        material.getStore().getTitle(),
-                        storeId
-                ))
+                .map(material -> MaterialDTO.builder()
+                        .id(material.getId())
+                        .text(material.getText())
+                        .quantity(material.getStockQuantity())
+                        .sizeId(material.getSize().getId())
+                        .sizeName(material.getSize().getName())
+                        .storeTitle(material.getStore().getTitle())
+                        .storeId(storeId)
+                        .stripeCount(material.getStripeCount())
+                        .build())
                 .collect(Collectors.toList());
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public MaterialDTO findById(Long id) throws MaterialNotFoundException {
         LOGGER.info("Finding material with ID: {}", id);
         Material material = materialRepository.findById(id)
@@ -92,11 +119,11 @@ public class MaterialService {
         return MaterialDTO.fromModel(material);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<MaterialDTO> findAll(Optional<String> text, Optional<Long> sizeId) {
         LOGGER.info("Fetching all materials with optional filters.");
         List<Material> materials = materialRepository.findByOptionalFilters(
-                text.orElse(null),
+                text.map(SearchKey::normalize).orElse(null),
                 sizeId.orElse(null)
         );
         return materials.stream()
@@ -108,6 +135,10 @@ public class MaterialService {
     public MaterialDTO edit(Long id, MaterialDTO dto)
             throws MaterialNotFoundException, SizeNotFoundException, MaterialAlreadyExistsException {
 
+        // lock the stock rows (stripes, then base) before anything is written: the ADJUST delta is taken
+        // from the locked total, and the base row is never held while waiting for the stripes
+        int currentQty = stockService.lockAvailable(id)
+                .orElseThrow(() -> new MaterialNotFoundException("MATERIAL_NOT_FOUND"));
         Material material = materialRepository.findById(id)
                 .orElseThrow(() -> new MaterialNotFoundException("MATERIAL_NOT_FOUND"));
 
@@ -116,33 +147,73 @@ public class MaterialService {
         Long newSizeId = dto.getSizeId();
         Long storeId = material.getStore().getId();
 
-        if (materialRepository.existsByTextAndStoreIdAndSizeIdAndIdNot(newText, storeId, newSizeId, id)) {
-            throw new MaterialAlreadyExistsException("MATERIAL_ALREADY_EXISTS");
+        material.setText(newText);
+        material.setSize(sizeRepository.getReferenceById(newSizeId));
+        try {
+            materialRepository.flush();
+        } catch (DataIntegrityViolationException ex) {
+            if (ConstraintViolations.isUniqueKey(ex, SearchIndexInitializer.MATERIAL_NATURAL_KEY)) {
+                throw new MaterialAlreadyExistsException("MATERIAL_ALREADY_EXISTS");
+            }
+            if (ConstraintViolations.isForeignKey(ex, "size_id")) {
+                throw new SizeNotFoundException("SIZE_NOT_FOUND");
+            }
+            throw ex;
         }
 
-        material.setText(newText);
-        material.setQuantity(newQty);
+        int delta = newQty - currentQty;
+        dashboardCounters.stockChanged(storeId, delta);
+        stockLedger.record(id, storeId, MovementType.ADJUST, delta);
 
-        material.setSize(sizeRepository.getReferenceById(newSizeId));
+        if (material.isStriped()) {
+            stockService.replaceQuantity(id, newQty);
+            MaterialDTO out = MaterialDTO.fromModel(material);
+            out.setQuantity(newQty);
+            return out;
+        }
 
+        material.setQuantity(newQty);
         return MaterialDTO.fromModel(material);
     }
 
     @Transactional
     public void delete(Long id) throws MaterialNotFoundException, UserNotFoundException {
-        authorizationService.authorize(userService.getAuthenticatedUserDetails().getUsername(), "SUPER_ADMIN");
+        authorizationService.authorize(currentUserContext.getUsername(), "SUPER_ADMIN");
         LOGGER.info("Authorization passed for deleting material ID: {}", id);
 
-        if (!materialRepository.existsById(id)) {
-            throw new MaterialNotFoundException("MATERIAL_NOT_FOUND");
-        }
+        Material material = materialRepository.findById(id)
+                .orElseThrow(() -> new MaterialNotFoundException("MATERIAL_NOT_FOUND"));
 
         boolean hasOrders = orderRepository.existsByMaterialId(id);
         if (hasOrders) {
             throw new IllegalStateException("MATERIAL_HAS_ORDERS");
         }
 
+        stripeRepository.deleteByMaterialId(id);
         materialRepository.deleteDirectlyById(id);
+        dashboardCounters.materialDeleted(material.getStore().getId(), material.getStockQuantity());
+        stockLedger.record(id, material.getStore().getId(), MovementType.ADJUST, -material.getStockQuantity());
+    }
+
+    public List<StockLevelDTO> stockAsOf(LocalDate date, Long storeId) {
+        if (!currentUserContext.isSuperAdmin()) {
+            storeId = currentUserContext.requireScopedStoreId();
+        }
+        return stockLedger.stockAsOf(date, storeId);
+    }
+
+    @Transactional
+    public MaterialDTO configureStriping(Long id, int stripes) throws MaterialNotFoundException {
+        if (!materialRepository.existsById(id)) {
+            throw new MaterialNotFoundException("MATERIAL_NOT_FOUND");
+        }
+
+        stockService.configureStripes(id, stripes);
+        LOGGER.info("Material ID {} now uses {} stock stripes", id, stripes);
+
+        return materialRepository.findById(id)
+                .map(MaterialDTO::fromModel)
+                .orElseThrow(() -> new MaterialNotFoundException("MATERIAL_NOT_FOUND"));
     }
 
     private MaterialDTO convertToDTO(Material material) {
@@ -150,7 +221,7 @@ public class MaterialService {
         dto.setId(material.getId());
         dto.setText(material.getText());
         dto.setSizeName(material.getSize().getName());
-        dto.setQuantity(material.getQuantity());
+        dto.setQuantity(material.getStockQuantity());
         dto.setStoreId(material.getStore().getId());
         return dto;
     }
@@ -159,60 +230,135 @@ public class MaterialService {
     public MaterialDTO distributeMaterial(MaterialDistributionDTO dto)
             throws MaterialNotFoundException, StoreNotFoundException, InsufficientQuantityException {
 
-        Material source = materialRepository.findByIdForUpdate(dto.getMaterialId())
-                .orElseThrow(() -> new MaterialNotFoundException("MATERIAL_NOT_FOUND"));
-
         Integer qtyObj = dto.getQuantity();
         if (qtyObj == null || qtyObj <= 0) {
             throw new IllegalArgumentException("QUANTITY_REQUIRED");
         }
         int qty = qtyObj;
 
-        if (source.getQuantity() < qty) {
+        Material source = materialRepository.findById(dto.getMaterialId())
+                .orElseThrow(() -> new MaterialNotFoundException("MATERIAL_NOT_FOUND"));
+
+        // checked up front: the upsert below only ever fails for other reasons
+        if (dto.getReceiverStoreId() == null || !storeRepository.existsById(dto.getReceiverStoreId())) {
+            throw new StoreNotFoundException("STORE_NOT_FOUND");
+        }
+
+        if (!stockService.tryDecrement(source.getId(), qty)) {
             throw new InsufficientQuantityException("INSUFFICIENT_QUANTITY");
         }
+        dashboardCounters.stockChanged(source.getStore().getId(), -qty);
+        stockLedger.record(source.getId(), source.getStore().getId(), MovementType.DISTRIBUTE_OUT, -qty);
 
-        // receiver store: reference is enough if you only need id
-        Store receiverStore;
-        try {
-            receiverStore = storeRepository.getReferenceById(dto.getReceiverStoreId());
-        } catch (EntityNotFoundException ex) {
-            throw new StoreNotFoundException("STORE_NOT_FOUND");
+        // Target material (same text + size + receiver store): created or topped up in one statement
+        MaterialUpsertRepository.Result target = addToTarget(source, dto.getReceiverStoreId(), qty);
+        stockLedger.record(target.id(), dto.getReceiverStoreId(), MovementType.DISTRIBUTE_IN, qty);
+
+        MaterialDTO out = materialRepository.findById(target.id())
+                .map(MaterialDTO::fromModel)
+                .orElseThrow(() -> new MaterialNotFoundException("MATERIAL_NOT_FOUND"));
+        out.setQuantity(stockService.currentQuantity(target.id()));
+        return out;
+    }
+
+    // striped targets get the quantity on their base row, which still counts towards their stock
+    private MaterialUpsertRepository.Result addToTarget(Material source, Long storeId, int qty) {
+        MaterialUpsertRepository.Result result =
+                materialUpsertRepository.addQuantity(source.getText(), storeId, source.getSize().getId(), qty);
+        if (result.inserted()) {
+            dashboardCounters.materialCreated(storeId, qty);
+        } else {
+            dashboardCounters.stockChanged(storeId, qty);
         }
+        return result;
+    }
 
-        // Find target material (same text + size + receiver store)
-        Optional<Material> targetOpt = materialRepository.findByTextAndSizeIdAndStoreId(
-                source.getText(),
-                source.getSize().getId(),
-                dto.getReceiverStoreId()
-        );
+    // one source to many stores: the source is decremented once for the total, targets are upserted in
+    // one JDBC batch and resolved with IN queries
+    @Transactional
+    public List<MaterialDTO> distributeMaterialBulk(BulkDistributionDTO dto)
+            throws MaterialNotFoundException, StoreNotFoundException, InsufficientQuantityException {
+
+        // ordered by store id: target rows are then always locked in the same order, so two bulk
+        // distributions of the same material to overlapping stores cannot deadlock
+        Map<Long, Integer> allocations = new TreeMap<>();
+        for (BulkDistributionDTO.Allocation allocation : dto.getAllocations()) {
+            if (allocation.getStoreId() == null) throw new IllegalArgumentException("STORE_ID_REQUIRED");
+            if (allocation.getQuantity() == null || allocation.getQuantity() <= 0) throw new IllegalArgumentException("QUANTITY_REQUIRED");
+            allocations.merge(allocation.getStoreId(), allocation.getQuantity(), Integer::sum);
+        }
+        if (allocations.isEmpty()) {
+            throw new IllegalArgumentException("ALLOCATIONS_REQUIRED");
+        }
 
-        Material target = targetOpt.orElseGet(() -> {
-            Material m = new Material();
-            m.setText(source.getText());
-            m.setSize(source.getSize());   // ok (same size entity)
-            m.setStore(receiverStore);
-            m.setQuantity(0);
-            return m;
-        });
+        Material source = materialRepository.findById(dto.getMaterialId())
+                .orElseThrow(() -> new MaterialNotFoundException("MATERIAL_NOT_FOUND"));
+        Long sourceStoreId = source.getStore().getId();
+        if (allocations.containsKey(sourceStoreId)) {
+            throw new IllegalArgumentException("SAME_STORE");
+        }
+
+        Map<Long, Store> stores = storeRepository.findAllById(allocations.keySet()).stream()
+                .collect(Collectors.toMap(Store::getId, store -> store));
+        if (stores.size() != allocations.size()) {
+            throw new StoreNotFoundException("STORE_NOT_FOUND");
+        }
 
-        // Update quantities (managed entities inside TX)
-        source.setQuantity(source.getQuantity() - qty);
-        target.setQuantity((target.getQuantity() == null ? 0 : target.getQuantity()) + qty);
+        int total = allocations.values().stream().mapToInt(Integer::intValue).sum();
+        if (!stockService.tryDecrement(source.getId(), total)) {
+            throw new InsufficientQuantityException("INSUFFICIENT_QUANTITY");
+        }
+        dashboardCounters.stockChanged(sourceStoreId, -total);
+        stockLedger.record(source.getId(), sourceStoreId, MovementType.DISTRIBUTE_OUT, -total);
+
+        Map<Long, Material> targets = materialRepository.findBySearchKeyAndSizeIdAndStoreIdIn(
+                        source.getSearchKey(), source.getSize().getId(), allocations.keySet()).stream()
+                .collect(Collectors.toMap(material -> material.getStore().getId(), material -> material, (a, b) -> a));
+        Map<Long, Integer> before = new HashMap<>();
+        targets.forEach((storeId, target) -> before.put(storeId, target.getStockQuantity()));
+
+        // existing targets are added to, missing ones inserted, all in one batch in store id order;
+        // striped targets get the quantity on their base row, which still counts towards their stock.
+        // loaded entities keep their old quantity, @DynamicUpdate keeps it out of any later UPDATE
+        materialUpsertRepository.addQuantities(source.getText(), source.getSize().getId(), allocations);
+
+        List<Long> created = allocations.keySet().stream().filter(storeId -> !targets.containsKey(storeId)).toList();
+        if (!created.isEmpty()) {
+            materialRepository.findBySearchKeyAndSizeIdAndStoreIdIn(source.getSearchKey(), source.getSize().getId(), created)
+                    .forEach(material -> targets.putIfAbsent(material.getStore().getId(), material));
+        }
 
-        // Save only target if new; source will be auto-flushed
-        // (save(source) not required, but ok if you keep it)
-        Material savedTarget = materialRepository.save(target);
+        List<MaterialDTO> out = new ArrayList<>(allocations.size());
+        for (Map.Entry<Long, Integer> allocation : allocations.entrySet()) {
+            Long storeId = allocation.getKey();
+            int qty = allocation.getValue();
+            Material target = targets.get(storeId);
+
+            MaterialDTO targetDTO = MaterialDTO.fromModel(target);
+            if (before.containsKey(storeId)) {
+                dashboardCounters.stockChanged(storeId, qty);
+                targetDTO.setQuantity(before.get(storeId) + qty);
+            } else {
+                dashboardCounters.materialCreated(storeId, qty);
+            }
+            stockLedger.record(target.getId(), storeId, MovementType.DISTRIBUTE_IN, qty);
+            out.add(targetDTO);
+        }
 
-        return MaterialDTO.fromModel(savedTarget);
+        LOGGER.info("Distributed {} of material {} to {} stores", total, source.getId(), allocations.size());
+        return out;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Page<MaterialDTO> findAllPaginatedWithFilters(Long storeId, String text, Long sizeId, Pageable pageable) throws UserNotFoundException {
-        UserDTO currentUser = userService.getAuthenticatedUserDetails();
+        if (!currentUserContext.isSuperAdmin()) {
+            storeId = currentUserContext.requireScopedStoreId(); // force στο store του χρήστη
+        }
 
-        if (currentUser.getRoles().stream().anyMatch(role -> role.getName().equalsIgnoreCase("LOCAL_ADMIN"))) {
-            storeId = currentUser.getStore().getId(); // force στο store του χρήστη
+        text = SearchKey.normalize(text);
+        String phrase = FulltextQuery.phrase(text);
+        if (phrase != null) {
+            return materialRepository.searchByFilters(storeId, phrase, sizeId, pageable).map(this::convertToDTO);
         }
 
         Page<Material> materialsPage = (storeId == null)
@@ -221,4 +367,33 @@ public class MaterialService {
 
         return materialsPage.map(this::convertToDTO);
     }
+
+    @Transactional(readOnly = true)
+    public PageResponse<MaterialDTO> findAfterCursorWithFilters(Long storeId, String text, Long sizeId,
+                                                                String cursor, int size, boolean withTotal) {
+        if (size <= 0) throw new IllegalArgumentException("PAGE_SIZE_REQUIRED");
+
+        if (!currentUserContext.isSuperAdmin()) {
+            storeId = currentUserContext.requireScopedStoreId();
+        }
+        PageCursor after = PageCursor.decode(cursor);
+
+        text = SearchKey.normalize(text);
+        String phrase = FulltextQuery.phrase(text);
+
+        List<Material> rows = phrase != null
+                ? materialRepository.searchNextByFilters(storeId, phrase, sizeId, after.sortKey(), after.id(), Limit.of(size + 1))
+                : materialRepository.findNextByFilters(storeId, text, sizeId, after.sortKey(), after.id(), Limit.of(size + 1));
+
+        boolean hasMore = rows.size() > size;
+        List<Material> page = hasMore ? rows.subList(0, size) : rows;
+        Material last = page.isEmpty() ? null : page.get(page.size() - 1);
+        String next = hasMore ? new PageCursor(last.getText(), last.getId()).encode() : null;
+        Long total = !withTotal ? null
+                : phrase != null
+                ? materialRepository.countSearchByFilters(storeId, phrase, sizeId)
+                : materialRepository.countByFilters(storeId, text, sizeId);
+
+        return PageResponse.ofCursor(page.stream().map(this::convertToDTO).toList(), size, next, total);
+    }
 }
@@ -0,0 +1,156 @@
+package gr.clothesmanager.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.clothesmanager.auth.CurrentUserContext;
+import gr.clothesmanager.dto.OrderView;
+import gr.clothesmanager.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Order export as CSV or NDJSON. Rows come from a forward-only streamed query and are written
+ * straight to the response, so heap use does not grow with the number of orders.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderExportService.class);
+
+    private static final int CLEAR_EVERY = 1000;
+    private static final String CSV_HEADER =
+            "id,dateOfOrder,quantity,orderStatus,materialId,materialText,sizeName,storeId,storeTitle,username";
+
+    private final OrderRepository orderRepository;
+    private final CurrentUserContext currentUserContext;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    // the request-scoped user is resolved here, the returned body runs later on an async thread
+    public StreamingResponseBody export(String format, LocalDate from, LocalDate to) {
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        if (!ndjson && !"csv".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("INVALID_EXPORT_FORMAT");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("INVALID_DATE_RANGE");
+        }
+
+        // refused here, before the controller commits the response
+        Long storeId = currentUserContext.isSuperAdmin() ? null : currentUserContext.requireScopedStoreId();
+        String username = currentUserContext.getUsername();
+        Date fromDate = from != null ? Date.valueOf(from) : null;
+        Date toDate = to != null ? Date.valueOf(to) : null;
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        return out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            long rows = readOnly.execute(status -> {
+                try (Stream<OrderView> stream = orderRepository.streamViewsForExport(storeId, fromDate, toDate)) {
+                    return ndjson ? writeNdjson(stream.iterator(), writer) : writeCsv(stream.iterator(), writer);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            writer.flush();
+            LOGGER.info("Exported {} orders for user: {}", rows, username);
+        };
+    }
+
+    private long writeCsv(Iterator<OrderView> orders, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long rows = 0;
+        while (orders.hasNext()) {
+            OrderView order = orders.next();
+            writer.write(String.valueOf(order.id()));
+            writer.write(',');
+            writer.write(String.valueOf(order.dateOfOrder()));
+            writer.write(',');
+            writer.write(String.valueOf(order.quantity()));
+            writer.write(',');
+            writer.write(String.valueOf(order.orderStatus()));
+            writer.write(',');
+            writer.write(String.valueOf(order.materialId()));
+            writer.write(',');
+            writer.write(csv(order.materialText()));
+            writer.write(',');
+            writer.write(csv(order.sizeName()));
+            writer.write(',');
+            writer.write(String.valueOf(order.storeId()));
+            writer.write(',');
+            writer.write(csv(order.storeTitle()));
+            writer.write(',');
+            writer.write(csv(order.username()));
+            writer.write('\n');
+            afterRow(++rows, writer);
+        }
+        return rows;
+    }
+
+    private long writeNdjson(Iterator<OrderView> orders, Writer writer) throws IOException {
+        long rows = 0;
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        while (orders.hasNext()) {
+            OrderView order = orders.next();
+            json.writeStartObject();
+            json.writeNumberField("id", order.id());
+            json.writeStringField("dateOfOrder", order.dateOfOrder() != null ? order.dateOfOrder().toString() : null);
+            json.writeObjectField("quantity", order.quantity());
+            json.writeObjectField("orderStatus", order.orderStatus());
+            json.writeObjectField("materialId", order.materialId());
+            json.writeStringField("materialText", order.materialText());
+            json.writeStringField("sizeName", order.sizeName());
+            json.writeObjectField("storeId", order.storeId());
+            json.writeStringField("storeTitle", order.storeTitle());
+            json.writeStringField("username", order.username());
+            json.writeEndObject();
+            json.writeRaw('\n');
+            json.flush();
+            afterRow(++rows, writer);
+        }
+        json.close();
+        return rows;
+    }
+
+    // projections are not managed, but clear anyway so nothing loaded along the way piles up
+    private void afterRow(long rows, Writer writer) throws IOException {
+        if (rows % CLEAR_EVERY == 0) {
+            entityManager.clear();
+            writer.flush();
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
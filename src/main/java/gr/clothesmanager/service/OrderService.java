@@ -1,23 +1,31 @@
 package gr.clothesmanager.service;
 
+import gr.clothesmanager.auth.CurrentUserContext;
+import gr.clothesmanager.common.FulltextQuery;
+import gr.clothesmanager.common.PageCursor;
+import gr.clothesmanager.common.SearchKey;
+import gr.clothesmanager.core.enums.MovementType;
 import gr.clothesmanager.core.enums.OrderStatus;
+import gr.clothesmanager.dto.BulkOrderDTO;
 import gr.clothesmanager.dto.OrderDTO;
-import gr.clothesmanager.dto.UserDTO;
+import gr.clothesmanager.dto.OrderView;
+import gr.clothesmanager.dto.PageResponse;
 import gr.clothesmanager.model.*;
 import gr.clothesmanager.repository.*;
+import gr.clothesmanager.service.exceptions.BulkOrderRejectedException;
 import gr.clothesmanager.service.exceptions.InsufficientStockException;
 import gr.clothesmanager.service.exceptions.OrderNotFoundException;
 import gr.clothesmanager.service.exceptions.UserNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,26 +34,35 @@ public class OrderService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OrderService.class);
 
+    public static final int MAX_BULK_LINES = 500;
+
     private final OrderRepository orderRepository;
+    private final OrderHeaderRepository orderHeaderRepository;
     private final MaterialRepository materialRepository;
     private final StoreRepository storeRepository;
     private final UserRepository userRepository;
-    private final UserService userService;
     private final SizeRepository sizeRepository;
+    private final StockService stockService;
+    private final CurrentUserContext currentUserContext;
+    private final DashboardCounters dashboardCounters;
+    private final StockLedger stockLedger;
+    private final StockReservationService stockReservationService;
 
     @Transactional
     public OrderDTO save(OrderDTO dto) throws UserNotFoundException {
         if (dto.getMaterialId() == null) throw new IllegalArgumentException("MATERIAL_ID_REQUIRED");
         if (dto.getQuantity() == null || dto.getQuantity() <= 0) throw new IllegalArgumentException("QUANTITY_REQUIRED");
 
-        Material material = materialRepository.findByIdForUpdate(dto.getMaterialId())
-                .orElseThrow(() -> new RuntimeException("MATERIAL_NOT_FOUND"));
-
         int requested = dto.getQuantity();
-        if (material.getQuantity() < requested) {
+        if (!stockService.tryDecrement(dto.getMaterialId(), requested)) {
+            if (!materialRepository.existsById(dto.getMaterialId())) {
+                throw new RuntimeException("MATERIAL_NOT_FOUND");
+            }
             throw new InsufficientStockException("INSUFFICIENT_STOCK");
         }
-        material.setQuantity(material.getQuantity() - requested);
+
+        Material material = materialRepository.findById(dto.getMaterialId())
+                .orElseThrow(() -> new RuntimeException("MATERIAL_NOT_FOUND"));
 
         Order order = dto.toModel();
         order.setQuantity(requested);
@@ -56,28 +73,126 @@ public class OrderService {
         order.setStore(material.getStore());
         order.setSize(material.getSize());
 
-        UserDTO currentUser = userService.getAuthenticatedUserDetails();
-        order.setUser(userRepository.getReferenceById(currentUser.getId()));
+        order.setUser(userRepository.getReferenceById(currentUserContext.getUserId()));
 
         Order saved = orderRepository.save(order);
+        dashboardCounters.orderCreated(material.getStore().getId(), saved.getDateOfOrder(), requested);
+        stockLedger.record(material.getId(), material.getStore().getId(), MovementType.ORDER, -requested, saved.getId());
+        if (saved.getOrderStatus() == OrderStatus.PENDING) {
+            stockReservationService.reserve(saved.getId());
+        }
 
         OrderDTO out = OrderDTO.fromModel(saved);
-        out.setStock(material.getQuantity());
+        out.setStock(stockService.currentQuantity(material.getId()));
         return out;
     }
 
+    // all lines or nothing: stock is locked material by material in ascending id order (no deadlocks between
+    // concurrent bulk orders), every line is checked, and only then is anything decremented
+    @Transactional
+    public BulkOrderDTO saveBulk(BulkOrderDTO dto) {
+        List<OrderDTO> lines = dto.getLines();
+        if (lines == null || lines.isEmpty()) throw new IllegalArgumentException("LINES_REQUIRED");
+        if (lines.size() > MAX_BULK_LINES) throw new IllegalArgumentException("TOO_MANY_LINES");
+
+        Map<Long, Integer> requested = new TreeMap<>();
+        for (OrderDTO line : lines) {
+            if (line.getMaterialId() == null) throw new IllegalArgumentException("MATERIAL_ID_REQUIRED");
+            if (line.getQuantity() == null || line.getQuantity() <= 0) throw new IllegalArgumentException("QUANTITY_REQUIRED");
+            requested.merge(line.getMaterialId(), line.getQuantity(), Integer::sum);
+        }
+
+        Map<Long, Integer> available = new HashMap<>();
+        for (Long materialId : requested.keySet()) {
+            stockService.lockAvailable(materialId).ifPresent(quantity -> available.put(materialId, quantity));
+        }
+
+        List<BulkOrderRejectedException.LineError> errors = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            OrderDTO line = lines.get(i);
+            Integer stock = available.get(line.getMaterialId());
+            if (stock == null) {
+                errors.add(new BulkOrderRejectedException.LineError(i, line.getMaterialId(), line.getQuantity(), null, "MATERIAL_NOT_FOUND"));
+            } else if (stock < requested.get(line.getMaterialId())) {
+                errors.add(new BulkOrderRejectedException.LineError(i, line.getMaterialId(), line.getQuantity(), stock, "INSUFFICIENT_STOCK"));
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new BulkOrderRejectedException(errors);
+        }
+
+        requested.forEach((materialId, quantity) -> {
+            if (!stockService.tryDecrement(materialId, quantity)) {
+                throw new InsufficientStockException("INSUFFICIENT_STOCK");
+            }
+        });
+
+        Map<Long, Material> materials = materialRepository.findAllById(requested.keySet()).stream()
+                .collect(Collectors.toMap(Material::getId, material -> material));
+        User user = userRepository.getReferenceById(currentUserContext.getUserId());
+        OrderStatus status = dto.getOrderStatus() != null ? dto.getOrderStatus() : OrderStatus.PENDING;
+
+        OrderHeader header = orderHeaderRepository.save(OrderHeader.builder()
+                .dateOfOrder(dto.getDateOfOrder())
+                .user(user)
+                .build());
+
+        List<Order> orders = new ArrayList<>(lines.size());
+        for (OrderDTO line : lines) {
+            Material material = materials.get(line.getMaterialId());
+            orders.add(Order.builder()
+                    .dateOfOrder(dto.getDateOfOrder())
+                    .quantity(line.getQuantity())
+                    .orderStatus(status)
+                    .material(material)
+                    .size(material.getSize())
+                    .store(material.getStore())
+                    .user(user)
+                    .header(header)
+                    .build());
+        }
+        List<Order> saved = orderRepository.saveAll(orders);
+        saved.forEach(order -> {
+            dashboardCounters.orderCreated(order.getStore().getId(), order.getDateOfOrder(), order.getQuantity());
+            stockLedger.record(order.getMaterial().getId(), order.getStore().getId(), MovementType.ORDER,
+                    -order.getQuantity(), order.getId());
+            if (status == OrderStatus.PENDING) {
+                stockReservationService.reserve(order.getId());
+            }
+        });
+
+        // stock rows are still locked, so what is left is exactly what we read minus what we took
+        List<OrderDTO> out = saved.stream().map(order -> {
+            OrderDTO line = OrderDTO.fromModel(order);
+            Long materialId = order.getMaterial().getId();
+            line.setStock(available.get(materialId) - requested.get(materialId));
+            return line;
+        }).collect(Collectors.toList());
+
+        LOGGER.info("Bulk order {} saved with {} lines", header.getId(), out.size());
+        return BulkOrderDTO.builder()
+                .id(header.getId())
+                .dateOfOrder(header.getDateOfOrder())
+                .orderStatus(status)
+                .lines(out)
+                .build();
+    }
+
     @Transactional
     public OrderDTO updateOrder(Long id, OrderDTO dto) throws OrderNotFoundException {
-        Order order = orderRepository.findById(id)
+        // leaving PENDING confirms (or cancels) the reservation; drop it before locking the order
+        if (dto.getOrderStatus() != OrderStatus.PENDING) {
+            stockReservationService.release(id);
+        }
+        Order order = orderRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new OrderNotFoundException("ORDER_NOT_FOUND"));
+        OrderStatus oldStatus = order.getOrderStatus();
 
         if (dto.getQuantity() == null || dto.getQuantity() <= 0) {
             throw new IllegalArgumentException("QUANTITY_REQUIRED");
         }
 
         Long materialId = order.getMaterial().getId();
-        Material material = materialRepository.findByIdForUpdate(materialId)
-                .orElseThrow(() -> new RuntimeException("MATERIAL_NOT_FOUND"));
 
         int oldQty = order.getQuantity();
         int newQty = dto.getQuantity();
@@ -85,27 +200,33 @@ public class OrderService {
         boolean wasCancelled = order.getOrderStatus() == OrderStatus.CANCELLED;
         boolean isNowCancelled = dto.getOrderStatus() == OrderStatus.CANCELLED;
 
+        int stockDelta = 0;
+
         // A) Active -> Cancelled : return old qty to stock
         if (!wasCancelled && isNowCancelled) {
-            material.setQuantity(material.getQuantity() + oldQty);
+            stockService.increment(materialId, oldQty);
+            stockDelta = oldQty;
         }
 
         // B) Cancelled -> Active : subtract new qty from stock
         else if (wasCancelled && !isNowCancelled) {
-            if (material.getQuantity() < newQty) {
+            if (!stockService.tryDecrement(materialId, newQty)) {
                 throw new InsufficientStockException("INSUFFICIENT_STOCK");
             }
-            material.setQuantity(material.getQuantity() - newQty);
+            stockDelta = -newQty;
         }
 
         // C) Active -> Active : adjust by diff
         else if (!wasCancelled) {
             int diff = newQty - oldQty;  // + means need more stock, - means return stock
 
-            if (diff > 0 && material.getQuantity() < diff) {
+            if (diff > 0 && !stockService.tryDecrement(materialId, diff)) {
                 throw new InsufficientStockException("INSUFFICIENT_STOCK");
             }
-            material.setQuantity(material.getQuantity() - diff);
+            if (diff < 0) {
+                stockService.increment(materialId, -diff);
+            }
+            stockDelta = -diff;
         }
 
         // D) Cancelled -> Cancelled : no stock change
@@ -115,60 +236,83 @@ public class OrderService {
         order.setOrderStatus(dto.getOrderStatus());
 
         Order updated = orderRepository.save(order);
+        if (dto.getOrderStatus() == OrderStatus.PENDING && oldStatus != OrderStatus.PENDING) {
+            stockReservationService.reserve(id);
+        }
+        dashboardCounters.stockChanged(order.getStore().getId(), stockDelta);
+        stockLedger.record(materialId, order.getStore().getId(),
+                !wasCancelled && isNowCancelled ? MovementType.CANCEL : MovementType.ORDER, stockDelta, id);
 
         OrderDTO response = OrderDTO.fromModel(updated);
-        response.setStock(material.getQuantity());
+        response.setStock(stockService.currentQuantity(materialId));
         return response;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public OrderDTO findById(Long id) throws OrderNotFoundException {
-        Order order = orderRepository.findById(id)
+        OrderView order = orderRepository.findViewById(id)
                 .orElseThrow(() -> new OrderNotFoundException("Order with ID " + id + " not found."));
         LOGGER.info("Order retrieved with ID: {}", id);
-        return OrderDTO.fromModel(order);
+        return OrderDTO.fromView(order);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<OrderDTO> findAll(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("USER_NOT_FOUND"));
-
-        List<Order> orders;
-        if (user.getRoles().stream().anyMatch(role -> role.getName().equalsIgnoreCase("SUPER_ADMIN"))) {
-            orders = orderRepository.findAll();
-        } else {
-            orders = orderRepository.findByStoreId(user.getStore().getId());
-        }
+        Long storeId = currentUserContext.isSuperAdmin() ? null : currentUserContext.requireScopedStoreId();
+        List<OrderView> orders = orderRepository.findViewsByStoreId(storeId);
 
         LOGGER.info("Retrieved orders for user: {}. Total count: {}", username, orders.size());
         return orders.stream()
-                .map(OrderDTO::fromModel)
+                .map(OrderDTO::fromView)
                 .collect(Collectors.toList());
     }
 
     @Transactional
     public void delete(Long id) throws OrderNotFoundException {
-        if (!orderRepository.existsById(id)) {
-            throw new OrderNotFoundException("Order with ID " + id + " not found.");
-        }
-        orderRepository.deleteById(id);
+        stockReservationService.release(id);
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new OrderNotFoundException("Order with ID " + id + " not found."));
+        orderRepository.delete(order);
+        dashboardCounters.orderDeleted(order.getDateOfOrder());
         LOGGER.info("Order deleted with ID: {}", id);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Page<OrderDTO> findOrdersPaginatedWithFilters(String username, Long storeId, String materialText, String sizeName, Pageable pageable) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("USER_NOT_FOUND"));
-
-        Page<Order> ordersPage;
-        if (user.getRoles().stream().anyMatch(role -> role.getName().equalsIgnoreCase("SUPER_ADMIN"))) {
-            ordersPage = orderRepository.findAllByFilters(storeId, null, materialText, sizeName, pageable);
-        } else {
-            Long localStoreId = user.getStore().getId();
-            ordersPage = orderRepository.findAllByFilters(localStoreId, null, materialText, sizeName, pageable);
-        }
+        Long scopedStoreId = currentUserContext.isSuperAdmin() ? storeId : currentUserContext.requireScopedStoreId();
+        materialText = SearchKey.normalize(materialText);
+        String phrase = FulltextQuery.phrase(materialText);
+
+        Page<OrderView> ordersPage = phrase != null
+                ? orderRepository.searchAllByFilters(scopedStoreId, null, phrase, sizeName, pageable)
+                : orderRepository.findAllByFilters(scopedStoreId, null, materialText, sizeName, pageable);
+
+        return ordersPage.map(OrderDTO::fromView);
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<OrderDTO> findOrdersAfterCursor(Long storeId, String materialText, String sizeName,
+                                                        String cursor, int size, boolean withTotal) {
+        if (size <= 0) throw new IllegalArgumentException("PAGE_SIZE_REQUIRED");
+
+        Long scopedStoreId = currentUserContext.isSuperAdmin() ? storeId : currentUserContext.requireScopedStoreId();
+        PageCursor after = PageCursor.decode(cursor);
+
+        materialText = SearchKey.normalize(materialText);
+        String phrase = FulltextQuery.phrase(materialText);
+
+        List<OrderView> rows = phrase != null
+                ? orderRepository.searchNextByFilters(scopedStoreId, phrase, sizeName, after.id(), Limit.of(size + 1))
+                : orderRepository.findNextByFilters(scopedStoreId, materialText, sizeName, after.id(), Limit.of(size + 1));
+
+        boolean hasMore = rows.size() > size;
+        List<OrderView> page = hasMore ? rows.subList(0, size) : rows;
+        String next = hasMore ? new PageCursor(null, page.get(page.size() - 1).id()).encode() : null;
+        Long total = !withTotal ? null
+                : phrase != null
+                ? orderRepository.countSearchByFilters(scopedStoreId, phrase, sizeName)
+                : orderRepository.countByFilters(scopedStoreId, materialText, sizeName);
 
-        return ordersPage.map(OrderDTO::fromModel);
+        return PageResponse.ofCursor(page.stream().map(OrderDTO::fromView).toList(), size, next, total);
     }
-}
\ No newline at end of file
+}
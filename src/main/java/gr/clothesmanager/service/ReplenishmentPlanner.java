@@ -0,0 +1,152 @@
+package gr.clothesmanager.service;
+
+import gr.clothesmanager.dto.ReplenishmentPlanDTO;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The database-free part of replenishment planning: per store arrays in, transfers and unmet shortages out.
+ * Shortages and surpluses are computed store by store in parallel and matched per (text, size) greedily:
+ * the most urgent shortage is served first, always from the largest remaining surplus.
+ */
+final class ReplenishmentPlanner {
+
+    private ReplenishmentPlanner() {
+    }
+
+    // skus and texts are indexed by the sku numbers used in StoreLevels
+    static Plan plan(Collection<StoreLevels> stores, List<Sku> skus, List<String> texts) {
+        // shortages and surpluses, store by store on the fork-join pool
+        Map<Integer, List<Position>> positionsBySku = stores.parallelStream()
+                .flatMap(StoreLevels::positions)
+                .collect(Collectors.groupingByConcurrent(Position::sku));
+
+        // greedy matching, independent per (text, size)
+        List<Plan> skuPlans = positionsBySku.entrySet().parallelStream()
+                .map(entry -> match(skus.get(entry.getKey()), texts.get(entry.getKey()), entry.getValue()))
+                .toList();
+
+        List<ReplenishmentPlanDTO.Transfer> transfers = new ArrayList<>();
+        List<ReplenishmentPlanDTO.Shortage> unmet = new ArrayList<>();
+        for (Plan skuPlan : skuPlans) {
+            transfers.addAll(skuPlan.transfers());
+            unmet.addAll(skuPlan.unmet());
+        }
+        transfers.sort(Comparator.comparing(ReplenishmentPlanDTO.Transfer::getSourceMaterialId)
+                .thenComparing(ReplenishmentPlanDTO.Transfer::getTargetStoreId));
+        return new Plan(transfers, unmet);
+    }
+
+    private static Plan match(Sku sku, String text, List<Position> positions) {
+        List<Position> shortages = new ArrayList<>();
+        PriorityQueue<Supply> supplies = new PriorityQueue<>((a, b) -> Integer.compare(b.left, a.left));
+        for (Position position : positions) {
+            if (position.surplus()) {
+                supplies.add(new Supply(position, position.quantity()));
+            } else {
+                shortages.add(position);
+            }
+        }
+        shortages.sort(Comparator.comparingInt(Position::urgency).reversed()
+                .thenComparing(Comparator.comparingInt(Position::quantity).reversed()));
+
+        List<ReplenishmentPlanDTO.Transfer> transfers = new ArrayList<>();
+        List<ReplenishmentPlanDTO.Shortage> unmet = new ArrayList<>();
+        for (Position shortage : shortages) {
+            int need = shortage.quantity();
+            while (need > 0 && !supplies.isEmpty()) {
+                Supply supply = supplies.poll();
+                int quantity = Math.min(need, supply.left);
+                transfers.add(new ReplenishmentPlanDTO.Transfer(supply.position.materialId(), supply.position.storeId(),
+                        shortage.storeId(), text, sku.sizeId(), quantity));
+                need -= quantity;
+                supply.left -= quantity;
+                if (supply.left > 0) {
+                    supplies.add(supply);
+                }
+            }
+            if (need > 0) {
+                unmet.add(new ReplenishmentPlanDTO.Shortage(shortage.storeId(), text, sku.sizeId(), need));
+            }
+        }
+        return new Plan(transfers, unmet);
+    }
+
+    record Sku(String searchKey, Long sizeId) {
+    }
+
+    record Plan(List<ReplenishmentPlanDTO.Transfer> transfers, List<ReplenishmentPlanDTO.Shortage> unmet) {
+    }
+
+    // quantity: what the store needs (up to max) or can give (above max); urgency: how far below min
+    private record Position(int sku, Long storeId, Long materialId, int quantity, int urgency, boolean surplus) {
+    }
+
+    private static final class Supply {
+        private final Position position;
+        private int left;
+
+        private Supply(Position position, int left) {
+            this.position = position;
+            this.left = left;
+        }
+    }
+
+    // one store's rules as parallel arrays sorted by sku, so stock rows are matched with a binary search;
+    // rules are {sku, min, max}
+    static final class StoreLevels {
+        private final Long storeId;
+        private final int size;
+        private final int[] sku;
+        private final int[] min;
+        private final int[] max;
+        private final int[] stock;
+        private final Long[] materialId;
+
+        StoreLevels(Long storeId, List<int[]> rules) {
+            rules.sort(Comparator.comparingInt(rule -> rule[0]));
+            this.storeId = storeId;
+            this.size = rules.size();
+            this.sku = new int[size];
+            this.min = new int[size];
+            this.max = new int[size];
+            this.stock = new int[size];
+            this.materialId = new Long[size];
+            for (int i = 0; i < size; i++) {
+                int[] rule = rules.get(i);
+                sku[i] = rule[0];
+                min[i] = rule[1];
+                max[i] = rule[2];
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        // false when the store has no rule for the sku
+        boolean setStock(int skuIndex, Long material, int quantity) {
+            int slot = Arrays.binarySearch(sku, skuIndex);
+            if (slot < 0) {
+                return false;
+            }
+            materialId[slot] = material;
+            stock[slot] = quantity;
+            return true;
+        }
+
+        private Stream<Position> positions() {
+            List<Position> positions = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (stock[i] < min[i]) {
+                    positions.add(new Position(sku[i], storeId, materialId[i], max[i] - stock[i], min[i] - stock[i], false));
+                } else if (stock[i] > max[i] && materialId[i] != null) {
+                    positions.add(new Position(sku[i], storeId, materialId[i], stock[i] - max[i], 0, true));
+                }
+            }
+            return positions.stream();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package gr.clothesmanager.service;
+
+import gr.clothesmanager.common.SearchKey;
+import gr.clothesmanager.core.exceptions.AppException;
+import gr.clothesmanager.dto.BulkDistributionDTO;
+import gr.clothesmanager.dto.ReplenishmentPlanDTO;
+import gr.clothesmanager.dto.StockLevelRuleDTO;
+import gr.clothesmanager.model.StockLevelRule;
+import gr.clothesmanager.repository.MaterialRepository;
+import gr.clothesmanager.repository.StockLevelRuleRepository;
+import gr.clothesmanager.repository.StoreRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Replenishment from per-store min/max levels. Planning works on primitive arrays built from two
+ * streamed projection queries (rules, then material stock) and hands them to ReplenishmentPlanner,
+ * which matches shortages and surpluses per (text, size).
+ * Executing a plan goes through the bulk distribution path, a batch of source materials per transaction.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReplenishmentService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplenishmentService.class);
+
+    private static final int MAX_ERRORS = 100;
+
+    private final StockLevelRuleRepository ruleRepository;
+    private final MaterialRepository materialRepository;
+    private final StoreRepository storeRepository;
+    private final SizeRegistry sizeRegistry;
+    private final MaterialService materialService;
+    private final PlatformTransactionManager transactionManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${replenishment.execute-batch:50}")
+    private int executeBatch;
+
+    @Transactional(readOnly = true)
+    public List<StockLevelRuleDTO> findRules(Long storeId) {
+        return ruleRepository.findByStoreIdOrderById(storeId).stream()
+                .map(StockLevelRuleDTO::fromModel)
+                .collect(Collectors.toList());
+    }
+
+    // creates or updates by (store, text, size)
+    @Transactional
+    public List<StockLevelRuleDTO> saveRules(List<StockLevelRuleDTO> dtos) {
+        if (dtos == null || dtos.isEmpty()) {
+            throw new IllegalArgumentException("RULES_REQUIRED");
+        }
+        for (StockLevelRuleDTO dto : dtos) {
+            if (dto.getStoreId() == null || dto.getSizeId() == null || dto.getText() == null || dto.getText().isBlank()) {
+                throw new IllegalArgumentException("RULE_FIELDS_REQUIRED");
+            }
+            if (dto.getMinLevel() == null || dto.getMaxLevel() == null
+                    || dto.getMinLevel() < 0 || dto.getMaxLevel() < dto.getMinLevel()) {
+                throw new IllegalArgumentException("INVALID_LEVELS");
+            }
+            if (sizeRegistry.findById(dto.getSizeId()).isEmpty()) {
+                throw new IllegalArgumentException("SIZE_NOT_FOUND");
+            }
+        }
+
+        Set<Long> storeIds = dtos.stream().map(StockLevelRuleDTO::getStoreId).collect(Collectors.toSet());
+        if (storeRepository.findAllById(storeIds).size() != storeIds.size()) {
+            throw new IllegalArgumentException("STORE_NOT_FOUND");
+        }
+
+        Map<RuleKey, StockLevelRule> existing = new HashMap<>();
+        for (StockLevelRule rule : ruleRepository.findByStoreIdIn(storeIds)) {
+            existing.put(new RuleKey(rule.getStoreId(), rule.getSearchKey(), rule.getSizeId()), rule);
+        }
+
+        List<StockLevelRule> rules = new ArrayList<>(dtos.size());
+        Set<StockLevelRule> touched = new LinkedHashSet<>();
+        for (StockLevelRuleDTO dto : dtos) {
+            RuleKey key = new RuleKey(dto.getStoreId(), SearchKey.normalize(dto.getText()), dto.getSizeId());
+            StockLevelRule rule = existing.computeIfAbsent(key, k -> {
+                StockLevelRule created = new StockLevelRule();
+                created.setStoreId(dto.getStoreId());
+                created.setSizeId(dto.getSizeId());
+                rules.add(created);
+                return created;
+            });
+            rule.setText(dto.getText().trim());
+            rule.setMinLevel(dto.getMinLevel());
+            rule.setMaxLevel(dto.getMaxLevel());
+            touched.add(rule);
+        }
+        ruleRepository.saveAll(rules);
+
+        return touched.stream()
+                .map(StockLevelRuleDTO::fromModel)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public void deleteRule(Long id) {
+        if (!ruleRepository.existsById(id)) {
+            throw new IllegalArgumentException("RULE_NOT_FOUND");
+        }
+        ruleRepository.deleteById(id);
+    }
+
+    public ReplenishmentPlanDTO plan() {
+        long started = System.currentTimeMillis();
+
+        // 1. rules -> per store arrays, (text, size) interned to an int
+        Map<ReplenishmentPlanner.Sku, Integer> skuIndex = new HashMap<>();
+        List<ReplenishmentPlanner.Sku> skus = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        Map<Long, List<int[]>> rulesByStore = new HashMap<>();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Map<Long, ReplenishmentPlanner.StoreLevels> stores = readOnly.execute(status -> {
+            try (Stream<Object[]> rows = ruleRepository.streamAllLevels()) {
+                rows.forEach(row -> {
+                    ReplenishmentPlanner.Sku sku = new ReplenishmentPlanner.Sku((String) row[1], (Long) row[2]);
+                    int index = skuIndex.computeIfAbsent(sku, key -> {
+                        skus.add(key);
+                        texts.add((String) row[5]);
+                        return skus.size() - 1;
+                    });
+                    rulesByStore.computeIfAbsent((Long) row[0], storeId -> new ArrayList<>())
+                            .add(new int[]{index, (Integer) row[3], (Integer) row[4]});
+                });
+            }
+
+            Map<Long, ReplenishmentPlanner.StoreLevels> levels = new HashMap<>();
+            rulesByStore.forEach((storeId, storeRules) ->
+                    levels.put(storeId, new ReplenishmentPlanner.StoreLevels(storeId, storeRules)));
+
+            // 2. one streamed pass over material stock fills the matching slots
+            try (Stream<Object[]> rows = materialRepository.streamStockBySku()) {
+                rows.forEach(row -> {
+                    ReplenishmentPlanner.StoreLevels store = levels.get((Long) row[1]);
+                    if (store == null) return;
+                    Integer sku = skuIndex.get(new ReplenishmentPlanner.Sku((String) row[2], (Long) row[3]));
+                    if (sku == null) return;
+                    store.setStock(sku, (Long) row[0], row[4] != null ? ((Number) row[4]).intValue() : 0);
+                });
+            }
+            return levels;
+        });
+
+        // 3. shortages, surpluses and greedy matching
+        ReplenishmentPlanner.Plan plan = ReplenishmentPlanner.plan(stores.values(), skus, texts);
+
+        long elapsed = System.currentTimeMillis() - started;
+        LOGGER.info("Replenishment plan: {} stores, {} transfers, {} unmet shortages in {} ms",
+                stores.size(), plan.transfers().size(), plan.unmet().size(), elapsed);
+
+        return ReplenishmentPlanDTO.builder()
+                .storesEvaluated(stores.size())
+                .rulesEvaluated(stores.values().stream().mapToInt(ReplenishmentPlanner.StoreLevels::size).sum())
+                .computeMillis(elapsed)
+                .transfers(new ArrayList<>(plan.transfers()))
+                .unmet(new ArrayList<>(plan.unmet()))
+                .build();
+    }
+
+    // plans against current stock and runs the transfers; a failing batch is retried source by source
+    public ReplenishmentPlanDTO execute() {
+        ReplenishmentPlanDTO plan = plan();
+
+        List<List<ReplenishmentPlanDTO.Transfer>> groups = new ArrayList<>(plan.getTransfers().stream()
+                .collect(Collectors.groupingBy(ReplenishmentPlanDTO.Transfer::getSourceMaterialId,
+                        LinkedHashMap::new, Collectors.toList()))
+                .values());
+
+        int executed = 0;
+        int failed = 0;
+        for (int from = 0; from < groups.size(); from += executeBatch) {
+            List<List<ReplenishmentPlanDTO.Transfer>> batch = groups.subList(from, Math.min(from + executeBatch, groups.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> batch.forEach(this::distribute));
+                executed += batch.stream().mapToInt(List::size).sum();
+            } catch (RuntimeException batchFailure) {
+                for (List<ReplenishmentPlanDTO.Transfer> group : batch) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> distribute(group));
+                        executed += group.size();
+                    } catch (RuntimeException ex) {
+                        failed += group.size();
+                        if (plan.getErrors().size() < MAX_ERRORS) {
+                            plan.getErrors().add("material " + group.get(0).getSourceMaterialId() + ": " + ex.getMessage());
+                        }
+                    }
+                }
+            }
+        }
+
+        plan.setExecutedTransfers(executed);
+        plan.setFailedTransfers(failed);
+        LOGGER.info("Replenishment executed: {} transfers, {} failed", executed, failed);
+        return plan;
+    }
+
+    private void distribute(List<ReplenishmentPlanDTO.Transfer> group) {
+        BulkDistributionDTO dto = BulkDistributionDTO.builder()
+                .materialId(group.get(0).getSourceMaterialId())
+                .allocations(group.stream()
+                        .map(transfer -> new BulkDistributionDTO.Allocation(transfer.getTargetStoreId(), transfer.getQuantity()))
+                        .collect(Collectors.toList()))
+                .build();
+        try {
+            materialService.distributeMaterialBulk(dto);
+        } catch (AppException ex) {
+            // checked: rethrow unchecked so the batch transaction rolls back
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+    }
+
+    private record RuleKey(Long storeId, String searchKey, Long sizeId) {
+    }
+}
@@ -2,9 +2,9 @@ package gr.clothesmanager.service;
 
 import gr.clothesmanager.model.UserRole;
 import gr.clothesmanager.repository.UserRoleRepository;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
 
@@ -14,7 +14,7 @@ public class RoleService {
 
     private final UserRoleRepository roleRepository;
 
-    @Transactional
+    @Transactional(readOnly = true)
     public UserRole getRoleByTag(String tag) {
         return roleRepository.findByTag(tag).orElse(null);
     }
@@ -0,0 +1,104 @@
+package gr.clothesmanager.service;
+
+import gr.clothesmanager.dto.SizeDTO;
+import gr.clothesmanager.model.Size;
+import gr.clothesmanager.repository.SizeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory copy of the sizes reference data (seeded by data.sql, rarely changed).
+ * Reads never touch the database; the snapshot is reloaded on startup, after a size is saved
+ * and when an unknown id is asked for (a size added on another node), at most once per
+ * {@code sizes.registry.miss-reload-interval}. Callers get their own SizeDTO copies.
+ */
+@Component
+@RequiredArgsConstructor
+public class SizeRegistry {
+
+    private final SizeRepository sizeRepository;
+
+    @Value("${sizes.registry.miss-reload-interval:30000}")
+    private long missReloadIntervalMillis;
+
+    private volatile Snapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Entry> sizes = sizeRepository.findAll().stream()
+                .sorted(Comparator.comparing(Size::getId))
+                .map(size -> new Entry(size.getId(), size.getName()))
+                .toList();
+        snapshot = new Snapshot(sizes, sizes.stream().collect(Collectors.toUnmodifiableMap(Entry::id, Function.identity())),
+                System.currentTimeMillis());
+    }
+
+    public List<SizeDTO> findAll() {
+        return current().sizes().stream().map(Entry::toDto).collect(Collectors.toList());
+    }
+
+    public Optional<SizeDTO> findById(Long id) {
+        Snapshot current = current();
+        Entry size = current.byId().get(id);
+        if (size == null && reloadAfterMiss(current)) {
+            size = snapshot.byId().get(id);
+        }
+        return Optional.ofNullable(size).map(Entry::toDto);
+    }
+
+    // reloads once the surrounding transaction (if any) has committed
+    public void refresh() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    load();
+                }
+            });
+        } else {
+            load();
+        }
+    }
+
+    // unknown ids reload the table only when the snapshot is older than the interval, so requests for
+    // ids that do not exist cannot force a reload each; concurrent misses share one reload
+    private synchronized boolean reloadAfterMiss(Snapshot missed) {
+        if (snapshot != missed) {
+            return true;
+        }
+        if (System.currentTimeMillis() - missed.loadedAt() < missReloadIntervalMillis) {
+            return false;
+        }
+        load();
+        return true;
+    }
+
+    private Snapshot current() {
+        if (snapshot == null) {
+            load();
+        }
+        return snapshot;
+    }
+
+    private record Entry(Long id, String name) {
+
+        SizeDTO toDto() {
+            return SizeDTO.builder().id(id).name(name).build();
+        }
+    }
+
+    private record Snapshot(List<Entry> sizes, Map<Long, Entry> byId, long loadedAt) {
+    }
+}
@@ -2,14 +2,16 @@ package gr.clothesmanager.service;
 
 import gr.clothesmanager.dto.SizeDTO;
 import gr.clothesmanager.model.Size;
+import gr.clothesmanager.repository.MaterialRepository;
 import gr.clothesmanager.repository.SizeRepository;
 import gr.clothesmanager.service.exceptions.SizeAlreadyExistsException;
 import gr.clothesmanager.service.exceptions.SizeNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -18,22 +20,30 @@ import java.util.stream.Collectors;
 public class SizeService {
 
     private final SizeRepository sizeRepository;
+    private final MaterialRepository materialRepository;
+    private final SizeRegistry sizeRegistry;
+    private final DashboardCounters dashboardCounters;
 
-    @Transactional
     public SizeDTO findById(Long id) throws SizeNotFoundException {
-        Optional<Size> size = sizeRepository.findById(id);
+        Optional<SizeDTO> size = sizeRegistry.findById(id);
         if (size.isPresent()) {
-            return SizeDTO.fromModel(size.get());
+            return size.get();
         }
         throw new SizeNotFoundException("Size with ID " + id + " not found.");
     }
 
-    @Transactional
     public List<SizeDTO> findAll() {
-        List<Size> sizes = sizeRepository.findAll();
-        return sizes.stream()
-                .map(SizeDTO::fromModel)
-                .collect(Collectors.toList());
+        return sizeRegistry.findAll();
+    }
+
+    // the registry hands out copies, so the counts can be set on them
+    @Transactional(readOnly = true)
+    public List<SizeDTO> findAllWithMaterialCount() {
+        Map<Long, Long> counts = materialRepository.countBySize().stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Long) row[1]));
+        List<SizeDTO> sizes = sizeRegistry.findAll();
+        sizes.forEach(size -> size.setMaterialCount(counts.getOrDefault(size.getId(), 0L)));
+        return sizes;
     }
 
     @Transactional
@@ -43,6 +53,8 @@ public class SizeService {
         }
         Size size = new Size(dto.getName());
         size = sizeRepository.save(size);
+        sizeRegistry.refresh();
+        dashboardCounters.sizeCreated();
 
         return SizeDTO.fromModel(size);
     }
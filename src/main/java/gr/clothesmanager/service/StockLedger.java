@@ -0,0 +1,168 @@
+package gr.clothesmanager.service;
+
+import gr.clothesmanager.core.enums.MovementType;
+import gr.clothesmanager.dto.StockLevelDTO;
+import gr.clothesmanager.model.StockMovement;
+import gr.clothesmanager.model.StockSnapshot;
+import gr.clothesmanager.repository.MaterialRepository;
+import gr.clothesmanager.repository.StockMovementRepository;
+import gr.clothesmanager.repository.StockSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Append-only history of every stock change. Material.quantity (plus stripes) stays the live,
+ * authoritative stock; the ledger answers "stock as of" questions. A scheduled job writes
+ * snapshots and marks the movements each one includes, so an as-of query reads one snapshot plus the
+ * movements marked up to the next one, never the whole ledger, however far back the date is. Marking
+ * instead of a time window keeps movements of transactions that commit late: they are simply picked
+ * up by the next snapshot.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockLedger {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StockLedger.class);
+
+    private final StockMovementRepository movementRepository;
+    private final StockSnapshotRepository snapshotRepository;
+    private final MaterialRepository materialRepository;
+
+    // joins the caller's transaction; inserts are flushed in JDBC batches with the rest of it
+    public void record(Long materialId, Long storeId, MovementType type, int delta, Long orderId) {
+        if (delta == 0) {
+            return;
+        }
+        movementRepository.save(StockMovement.builder()
+                .materialId(materialId)
+                .storeId(storeId)
+                .type(type)
+                .delta(delta)
+                .orderId(orderId)
+                .occurredAt(Instant.now())
+                .build());
+    }
+
+    public void record(Long materialId, Long storeId, MovementType type, int delta) {
+        record(materialId, storeId, type, delta, null);
+    }
+
+    // stock at the end of the given day (server time zone)
+    @Transactional(readOnly = true)
+    public List<StockLevelDTO> stockAsOf(LocalDate date, Long storeId) {
+        Instant at = date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        Instant snapshotAt = snapshotRepository.findLatestTakenAt(at).orElse(null);
+        Instant nextSnapshotAt = snapshotRepository.findEarliestTakenAtAfter(at).orElse(null);
+
+        Map<Long, StockLevelDTO> levels = new TreeMap<>();
+        if (snapshotAt != null) {
+            add(levels, snapshotRepository.findQuantities(snapshotAt, storeId));
+        }
+        if (nextSnapshotAt == null) {
+            // the latest snapshot: what it does not include is at most one interval of movements
+            add(levels, movementRepository.sumNotInSnapshot(snapshotAt, at, storeId));
+        } else {
+            // only the movements the next snapshot picked up, late commits and unmarked ones count,
+            // not everything marked since snapshotAt
+            add(levels, movementRepository.sumMarkedBetween(snapshotAt, nextSnapshotAt, at, storeId));
+            add(levels, movementRepository.sumMarkedAfter(nextSnapshotAt, at, storeId));
+            add(levels, movementRepository.sumUnmarked(at, storeId));
+        }
+
+        return levels.values().stream().filter(level -> level.getQuantity() != 0).toList();
+    }
+
+    @Scheduled(cron = "${stock.snapshot.cron:0 15 0 * * *}")
+    @Transactional
+    public void takeSnapshot() {
+        Instant takenAt = Instant.now();
+        Instant previous = snapshotRepository.findLatestTakenAt().orElse(null);
+        if (previous != null && !previous.isBefore(takenAt)) {
+            return;
+        }
+        if (movementRepository.markInSnapshot(takenAt) == 0 && previous != null) {
+            return;
+        }
+
+        Map<Long, StockLevelDTO> levels = new HashMap<>();
+        if (previous != null) {
+            add(levels, snapshotRepository.findQuantities(previous, null));
+        }
+        // everything the previous snapshot does not include, also what an earlier run marked but
+        // did not write rows for (all of its levels netted out to zero)
+        add(levels, movementRepository.sumNotInSnapshot(previous, takenAt, null));
+
+        List<StockSnapshot> rows = levels.values().stream()
+                .filter(level -> level.getQuantity() != 0)
+                .map(level -> StockSnapshot.builder()
+                        .takenAt(takenAt)
+                        .materialId(level.getMaterialId())
+                        .storeId(level.getStoreId())
+                        .quantity(level.getQuantity())
+                        .build())
+                .toList();
+        snapshotRepository.saveAll(rows);
+        LOGGER.info("Stock snapshot at {} with {} materials", takenAt, rows.size());
+    }
+
+    // snapshots written before movements were marked cannot tell which movements they include;
+    // drop them, as-of queries sum the ledger until the next run takes a marked snapshot
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void discardUnmarkedSnapshots() {
+        if (snapshotRepository.count() > 0 && !movementRepository.existsBySnapshotAtIsNotNull()) {
+            snapshotRepository.deleteAllInBatch();
+            LOGGER.info("Discarded stock snapshots taken before movement marking");
+        }
+    }
+
+    // first start with the ledger: the current stock becomes each material's opening ADJUST movement
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillOpeningBalances() {
+        if (movementRepository.count() > 0) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<StockMovement> openings = new ArrayList<>();
+        for (Object[] row : materialRepository.findStockLevels()) {
+            int quantity = row[2] != null ? ((Number) row[2]).intValue() : 0;
+            if (quantity != 0) {
+                openings.add(StockMovement.builder()
+                        .materialId((Long) row[0])
+                        .storeId((Long) row[1])
+                        .type(MovementType.ADJUST)
+                        .delta(quantity)
+                        .occurredAt(now)
+                        .build());
+            }
+        }
+        movementRepository.saveAll(openings);
+        if (!openings.isEmpty()) {
+            LOGGER.info("Recorded opening stock balances for {} materials", openings.size());
+        }
+    }
+
+    private static void add(Map<Long, StockLevelDTO> levels, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            Long materialId = (Long) row[0];
+            int quantity = ((Number) row[2]).intValue();
+            levels.merge(materialId, new StockLevelDTO(materialId, (Long) row[1], quantity),
+                    (current, extra) -> {
+                        current.setQuantity(current.getQuantity() + extra.getQuantity());
+                        return current;
+                    });
+        }
+    }
+}
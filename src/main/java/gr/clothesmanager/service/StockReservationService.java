@@ -0,0 +1,145 @@
+package gr.clothesmanager.service;
+
+import gr.clothesmanager.core.enums.MovementType;
+import gr.clothesmanager.core.enums.OrderStatus;
+import gr.clothesmanager.model.StockReservation;
+import gr.clothesmanager.repository.OrderRepository;
+import gr.clothesmanager.repository.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A PENDING order takes its stock right away (see OrderService.save) and gets a reservation with a TTL.
+ * Moving the order to PROCESSING/COMPLETED confirms it (the reservation is dropped); if nobody does
+ * before it expires, the sweeper cancels the order and puts the stock back.
+ * Lock order everywhere is reservation row first, then order row.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StockReservationService.class);
+
+    private final StockReservationRepository reservationRepository;
+    private final OrderRepository orderRepository;
+    private final StockService stockService;
+    private final StockLedger stockLedger;
+    private final DashboardCounters dashboardCounters;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${stock.reservation.ttl:PT48H}")
+    private Duration ttl;
+
+    @Value("${stock.reservation.sweep-batch:200}")
+    private int sweepBatch;
+
+    @Value("${stock.reservation.backfill-pending:false}")
+    private boolean backfillPending;
+
+    // joins the caller's transaction
+    public void reserve(Long orderId) {
+        reservationRepository.save(StockReservation.builder()
+                .orderId(orderId)
+                .expiresAt(Instant.now().plus(ttl))
+                .build());
+    }
+
+    // confirm or cancel: either way the order no longer needs the sweeper; waits if the sweeper holds the row
+    public void release(Long orderId) {
+        reservationRepository.deleteByOrderId(orderId);
+    }
+
+    // PENDING orders that never got a reservation are given one with a fresh TTL, so the sweeper can
+    // release their stock too; runs in batches before the first sweep, only when explicitly enabled
+    // because every such order is then cancelled once the TTL passes
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillPendingOrders() {
+        if (!backfillPending) {
+            return;
+        }
+        int reserved = 0;
+        int batch;
+        do {
+            try {
+                batch = transactionTemplate.execute(status -> {
+                    List<Long> orderIds = reservationRepository.findOrderIdsWithoutReservation(
+                            OrderStatus.PENDING, Limit.of(sweepBatch));
+                    Instant expiresAt = Instant.now().plus(ttl);
+                    reservationRepository.saveAll(orderIds.stream()
+                            .map(orderId -> StockReservation.builder().orderId(orderId).expiresAt(expiresAt).build())
+                            .toList());
+                    return orderIds.size();
+                });
+                reserved += batch;
+            } catch (DataIntegrityViolationException ex) {
+                // an order was reserved by a request meanwhile (uk_stock_reservation_order): query again
+                LOGGER.debug("Reservation backfill batch raced with a request: {}", ex.getMessage());
+                batch = sweepBatch;
+            }
+        } while (batch == sweepBatch);
+
+        if (reserved > 0) {
+            LOGGER.info("Reserved stock for {} existing PENDING orders (expire in {})", reserved, ttl);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${stock.reservation.sweep-interval:60000}",
+            fixedDelayString = "${stock.reservation.sweep-interval:60000}")
+    public void sweepExpired() {
+        int released = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> sweepBatch(Instant.now()));
+            released += batch;
+        } while (batch == sweepBatch);
+
+        if (released > 0) {
+            LOGGER.info("Released {} expired stock reservations", released);
+        }
+    }
+
+    private int sweepBatch(Instant now) {
+        List<Object[]> expired = reservationRepository.lockExpired(now, sweepBatch);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        // only still-PENDING orders; anything confirmed or cancelled meanwhile keeps its stock as is.
+        // quantities are read after the update so a concurrent edit that committed first is seen
+        List<Long> cancelled = new ArrayList<>();
+        for (Object[] row : expired) {
+            Long orderId = ((Number) row[1]).longValue();
+            if (orderRepository.updateStatusIf(orderId, OrderStatus.PENDING, OrderStatus.CANCELLED) > 0) {
+                cancelled.add(orderId);
+            }
+        }
+
+        for (Object[] order : cancelled.isEmpty() ? List.<Object[]>of() : orderRepository.findStockFieldsByIds(cancelled)) {
+            Long orderId = (Long) order[0];
+            Long materialId = (Long) order[1];
+            Long storeId = (Long) order[2];
+            int quantity = (Integer) order[3];
+
+            stockService.increment(materialId, quantity);
+            stockLedger.record(materialId, storeId, MovementType.CANCEL, quantity, orderId);
+            dashboardCounters.stockChanged(storeId, quantity);
+        }
+
+        reservationRepository.deleteByIdIn(expired.stream().map(row -> ((Number) row[0]).longValue()).toList());
+        return expired.size();
+    }
+}
@@ -0,0 +1,159 @@
+package gr.clothesmanager.service;
+
+import gr.clothesmanager.model.Material;
+import gr.clothesmanager.model.MaterialStockStripe;
+import gr.clothesmanager.repository.MaterialRepository;
+import gr.clothesmanager.repository.MaterialStockStripeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stock changes are applied as single conditional UPDATE statements instead of
+ * load / check / dirty-check, so concurrent orders on the same material can never oversell.
+ * Hot materials can be striped: their stock is spread over N rows of material_stock_stripes
+ * (plus the base materials.quantity) so concurrent orders do not queue on one row.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockService {
+
+    public static final int MAX_STRIPES = 64;
+
+    private final MaterialRepository materialRepository;
+    private final MaterialStockStripeRepository stripeRepository;
+
+    // false when the material does not exist or does not have enough stock
+    @Transactional
+    public boolean tryDecrement(Long materialId, int quantity) {
+        int stripes = materialRepository.findStripeCountById(materialId).orElse(0);
+        if (stripes == 0) {
+            if (materialRepository.decrementQuantity(materialId, quantity) > 0) {
+                return true;
+            }
+            // the count above is not locked: a concurrent configureStripes may have moved the stock onto
+            // stripes. Re-read it under the base row lock (already held) before reporting a shortage;
+            // only right after such a change does the striped path then lock stripes after the base row
+            if (materialRepository.lockStripeCountById(materialId).orElse(0) == 0) {
+                return false;
+            }
+        }
+        return tryDecrementStriped(materialId, quantity);
+    }
+
+    @Transactional
+    public void increment(Long materialId, int quantity) {
+        int stripes = materialRepository.findStripeCountById(materialId)
+                .orElseThrow(() -> new RuntimeException("MATERIAL_NOT_FOUND"));
+
+        if (stripes > 0) {
+            int stripe = ThreadLocalRandom.current().nextInt(stripes);
+            if (stripeRepository.incrementQuantity(materialId, stripe, quantity) > 0) {
+                return;
+            }
+        }
+        materialRepository.incrementQuantity(materialId, quantity);
+    }
+
+    @Transactional
+    public int currentQuantity(Long materialId) {
+        return materialRepository.findAvailableQuantityById(materialId)
+                .orElseThrow(() -> new RuntimeException("MATERIAL_NOT_FOUND"));
+    }
+
+    // locks the stock rows (same order as below) and returns the total, empty when the material does not exist;
+    // callers locking several materials must go in ascending id order
+    @Transactional
+    public Optional<Integer> lockAvailable(Long materialId) {
+        List<Object[]> rows = stripeRepository.lockStripes(materialId);
+        return materialRepository.lockQuantityById(materialId)
+                .map(base -> base + rows.stream().mapToInt(row -> ((Number) row[1]).intValue()).sum());
+    }
+
+    // stripes = 0 folds everything back into the single materials row
+    @Transactional
+    public void configureStripes(Long materialId, int stripes) {
+        if (stripes < 0 || stripes > MAX_STRIPES) {
+            throw new IllegalArgumentException("STRIPES_OUT_OF_RANGE");
+        }
+        int total = lockTotal(materialId);
+        rewriteLayout(materialId, total, stripes);
+    }
+
+    // manual stock correction for a striped material, keeps the current stripe count
+    @Transactional
+    public void replaceQuantity(Long materialId, int quantity) {
+        int stripes = materialRepository.findStripeCountById(materialId)
+                .orElseThrow(() -> new RuntimeException("MATERIAL_NOT_FOUND"));
+        lockTotal(materialId);
+        rewriteLayout(materialId, quantity, stripes);
+    }
+
+    private boolean tryDecrementStriped(Long materialId, int quantity) {
+        // fast path: one stripe that can serve the whole request, picked at random to spread writers
+        List<Integer> candidates = stripeRepository.findStripesWithAtLeast(materialId, quantity);
+        if (!candidates.isEmpty()) {
+            int stripe = candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+            if (stripeRepository.decrementQuantity(materialId, stripe, quantity) > 0) {
+                return true;
+            }
+        }
+
+        // fallback: lock stripes and base row, take from as many as needed
+        List<Object[]> rows = stripeRepository.lockStripes(materialId);
+        int base = materialRepository.lockQuantityById(materialId).orElse(0);
+        int total = base + rows.stream().mapToInt(row -> ((Number) row[1]).intValue()).sum();
+        if (total < quantity) {
+            return false;
+        }
+
+        int remaining = quantity;
+        for (Object[] row : rows) {
+            int take = Math.min(((Number) row[1]).intValue(), remaining);
+            if (take > 0) {
+                stripeRepository.decrementQuantity(materialId, ((Number) row[0]).intValue(), take);
+                remaining -= take;
+            }
+        }
+        if (remaining > 0) {
+            materialRepository.decrementQuantity(materialId, remaining);
+        }
+        return true;
+    }
+
+    // same lock order as the decrement fallback: stripes ascending, then the base row
+    private int lockTotal(Long materialId) {
+        List<Object[]> rows = stripeRepository.lockStripes(materialId);
+        int base = materialRepository.lockQuantityById(materialId)
+                .orElseThrow(() -> new RuntimeException("MATERIAL_NOT_FOUND"));
+        return base + rows.stream().mapToInt(row -> ((Number) row[1]).intValue()).sum();
+    }
+
+    private void rewriteLayout(Long materialId, int total, int stripes) {
+        stripeRepository.deleteByMaterialId(materialId);
+
+        if (stripes == 0) {
+            materialRepository.updateStockLayout(materialId, total, null);
+            return;
+        }
+
+        materialRepository.updateStockLayout(materialId, 0, stripes);
+
+        Material material = materialRepository.getReferenceById(materialId);
+        List<MaterialStockStripe> rows = new ArrayList<>(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int share = total / stripes + (i < total % stripes ? 1 : 0);
+            rows.add(MaterialStockStripe.builder()
+                    .material(material)
+                    .stripe(i)
+                    .quantity(share)
+                    .build());
+        }
+        stripeRepository.saveAll(rows);
+    }
+}
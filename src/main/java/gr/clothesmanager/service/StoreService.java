@@ -2,9 +2,10 @@ package gr.clothesmanager.service;
 
 
 import gr.clothesmanager.auth.AuthorizationService;
+import gr.clothesmanager.auth.CurrentUserContext;
 import gr.clothesmanager.core.enums.Status;
+import gr.clothesmanager.core.enums.StoreInclude;
 import gr.clothesmanager.dto.StoreDTO;
-import gr.clothesmanager.dto.UserDTO;
 import gr.clothesmanager.model.Store;
 import gr.clothesmanager.repository.MaterialRepository;
 import gr.clothesmanager.repository.OrderRepository;
@@ -13,16 +14,16 @@ import gr.clothesmanager.repository.UserRepository;
 import gr.clothesmanager.service.exceptions.StoreAlreadyExistsException;
 import gr.clothesmanager.service.exceptions.StoreNotFoundException;
 import gr.clothesmanager.service.exceptions.UserNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,8 +34,9 @@ public class StoreService {
     private final MaterialRepository materialRepository;
     private final OrderRepository orderRepository;
     private final AuthorizationService authorizationService;
-    private final UserService userService;
     private final UserRepository userRepository;
+    private final CurrentUserContext currentUserContext;
+    private final DashboardCounters dashboardCounters;
 
     @Transactional
     public StoreDTO save(StoreDTO dto) throws StoreAlreadyExistsException {
@@ -48,46 +50,50 @@ public class StoreService {
         store.setStatus(dto.getStatus());
 
         Store savedStore = storeRepository.save(store);
+        dashboardCounters.storeCreated();
         LOGGER.info("Successfully saved store with ID: {}", savedStore.getId());
         return StoreDTO.fromModel(savedStore);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public StoreDTO findById(Long id) throws StoreNotFoundException {
+        return findById(id, Set.of());
+    }
+
+    @Transactional(readOnly = true)
+    public StoreDTO findById(Long id, Set<StoreInclude> include) throws StoreNotFoundException {
         String username = getAuthenticatedUsername();
         authorizationService.authorize(username, "SUPER_ADMIN", "LOCAL_ADMIN");
 
-        return storeRepository.findById(id)
+        StoreDTO store = storeRepository.findById(id)
                 .map(StoreDTO::fromModel)
                 .orElseThrow(() -> new StoreNotFoundException("STORE_NOT_FOUND"));
+        return expand(List.of(store), include).get(0);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<StoreDTO> findAll() throws UserNotFoundException {
-        String username = getAuthenticatedUsername();
-        UserDTO userDTO = userService.findUserByUsername(username)
-                .orElseThrow(() -> new UserNotFoundException("USER_NOT_FOUND"));
-
-        boolean isSuperAdmin = userDTO.getRoles().stream()
-                .anyMatch(role -> role.getName().equalsIgnoreCase("SUPER_ADMIN"));
+        return findAll(Set.of());
+    }
 
-        if (isSuperAdmin) {
-            return storeRepository.findAll().stream()
+    @Transactional(readOnly = true)
+    public List<StoreDTO> findAll(Set<StoreInclude> include) throws UserNotFoundException {
+        if (currentUserContext.isSuperAdmin()) {
+            return expand(storeRepository.findAll().stream()
                     .map(StoreDTO::fromModel)
-                    .collect(Collectors.toList());
+                    .collect(Collectors.toList()), include);
         }
-        boolean isLocalAdmin = userDTO.getRoles().stream()
-                .anyMatch(role -> role.getName().equalsIgnoreCase("LOCAL_ADMIN"));
 
-        if (isLocalAdmin) {
-            if (userDTO.getStore() == null) {
+        if (currentUserContext.isLocalAdmin()) {
+            Long storeId = currentUserContext.getStoreId();
+            if (storeId == null) {
                 throw new AccessDeniedException("NO_STORE_ASSIGNED");
             }
 
             try {
-                return storeRepository.findById(userDTO.getStore().getId())
+                return expand(storeRepository.findById(storeId)
                         .map(store -> List.of(StoreDTO.fromModel(store)))
-                        .orElseThrow(() -> new StoreNotFoundException("STORE_NOT_FOUND"));
+                        .orElseThrow(() -> new StoreNotFoundException("STORE_NOT_FOUND")), include);
             } catch (StoreNotFoundException e) {
                 throw new RuntimeException(e);
             }
@@ -115,7 +121,7 @@ public class StoreService {
 
     @Transactional
     public void deleteStoreById(Long id) throws StoreNotFoundException, UserNotFoundException {
-        authorizationService.authorize(userService.getAuthenticatedUserDetails().getUsername(), "SUPER_ADMIN");
+        authorizationService.authorize(getAuthenticatedUsername(), "SUPER_ADMIN");
         LOGGER.info("Attempting to delete store with ID: {}", id);
 
         if (materialRepository.existsByStoreId(id)) throw new IllegalStateException("STORE_DELETE_HAS_MATERIALS");
@@ -126,6 +132,7 @@ public class StoreService {
         if (deleted == 0) {
             throw new StoreNotFoundException("STORE_NOT_FOUND");
         }
+        dashboardCounters.storeDeleted(id);
 
         LOGGER.info("Successfully deleted store with ID: {}", id);
     }
@@ -140,6 +147,7 @@ public class StoreService {
         store.setStatus(dto.getStatus());
 
         Store savedStore = storeRepository.save(store);
+        dashboardCounters.storeCreated();
         LOGGER.info("Successfully saved initial setup store with ID: {}", savedStore.getId());
         return StoreDTO.fromModel(savedStore);
     }
@@ -163,6 +171,48 @@ public class StoreService {
         return StoreDTO.fromModel(savedStore);
     }
 
+    // one id query or one grouped count per requested expansion, for all stores at once
+    private List<StoreDTO> expand(List<StoreDTO> stores, Set<StoreInclude> include) {
+        if (stores.isEmpty() || include.isEmpty()) {
+            return stores;
+        }
+        List<Long> storeIds = stores.stream().map(StoreDTO::getId).toList();
+
+        if (include.contains(StoreInclude.MATERIALS)) {
+            Map<Long, List<Long>> ids = groupIds(materialRepository.findIdsByStoreIds(storeIds));
+            stores.forEach(store -> store.setMaterialIds(ids.getOrDefault(store.getId(), List.of())));
+        }
+        if (include.contains(StoreInclude.USERS)) {
+            Map<Long, List<Long>> ids = groupIds(userRepository.findIdsByStoreIds(storeIds));
+            stores.forEach(store -> store.setUserIds(ids.getOrDefault(store.getId(), List.of())));
+        }
+        if (include.contains(StoreInclude.ORDERS)) {
+            Map<Long, List<Long>> ids = groupIds(orderRepository.findIdsByStoreIds(storeIds));
+            stores.forEach(store -> store.setOrderIds(ids.getOrDefault(store.getId(), List.of())));
+        }
+        if (include.contains(StoreInclude.COUNTS)) {
+            Map<Long, Long> materials = toCounts(materialRepository.countByStoreIds(storeIds));
+            Map<Long, Long> users = toCounts(userRepository.countByStoreIds(storeIds));
+            Map<Long, Long> orders = toCounts(orderRepository.countByStoreIds(storeIds));
+            stores.forEach(store -> {
+                store.setMaterialCount(materials.getOrDefault(store.getId(), 0L));
+                store.setUserCount(users.getOrDefault(store.getId(), 0L));
+                store.setOrderCount(orders.getOrDefault(store.getId(), 0L));
+            });
+        }
+        return stores;
+    }
+
+    private static Map<Long, List<Long>> groupIds(List<Object[]> rows) {
+        return rows.stream().collect(Collectors.groupingBy(
+                row -> (Long) row[0],
+                Collectors.mapping(row -> (Long) row[1], Collectors.toList())));
+    }
+
+    private static Map<Long, Long> toCounts(List<Object[]> rows) {
+        return rows.stream().collect(Collectors.toMap(row -> (Long) row[0], row -> (Long) row[1]));
+    }
+
     private void validateStore(StoreDTO dto) {
         if (dto.getTitle() == null || dto.getTitle().isEmpty()) {
             throw new IllegalArgumentException("Title is required.");
@@ -176,12 +226,6 @@ public class StoreService {
     }
 
     private String getAuthenticatedUsername() {
-        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        if (principal instanceof UserDetails) {
-            return ((UserDetails) principal).getUsername();
-        } else {
-            return principal.toString();
-        }
+        return currentUserContext.getUsername();
     }
 }
-
@@ -1,26 +1,32 @@
 package gr.clothesmanager.service;
 
+import gr.clothesmanager.auth.CurrentUserContext;
+import gr.clothesmanager.core.SetupState;
 import gr.clothesmanager.core.enums.Status;
 import gr.clothesmanager.dto.UserDTO;
 import gr.clothesmanager.dto.UserRoleDTO;
+import gr.clothesmanager.dto.UserSummaryDTO;
 import gr.clothesmanager.model.Store;
 import gr.clothesmanager.model.User;
 import gr.clothesmanager.model.UserRole;
 import gr.clothesmanager.repository.MaterialRepository;
 import gr.clothesmanager.repository.OrderRepository;
 import gr.clothesmanager.repository.UserRepository;
+import gr.clothesmanager.security.TokenVersionRegistry;
 import gr.clothesmanager.service.exceptions.UserAlreadyExistsException;
 import gr.clothesmanager.service.exceptions.UserNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -36,6 +42,10 @@ public class UserService  {
     private final MaterialRepository materialRepository;
     private final RoleService roleService;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final CurrentUserContext currentUserContext;
+    private final SetupState setupState;
+    private final DashboardCounters dashboardCounters;
 
     @Transactional
     public UserDTO saveUser(UserDTO dto, Store store) throws UserAlreadyExistsException {
@@ -53,18 +63,20 @@ public class UserService  {
         user.setIsSystemEntity(dto.getIsSystemEntity() != null ? dto.getIsSystemEntity() : false);
 
         userRepository.save(user);
+        dashboardCounters.userStatusChanged(null, Status.ACTIVE);
         // Fetch with roles after save to populate them
         User savedUser = userRepository.findByIdWithRoles(user.getId()).orElse(user);
         return UserDTO.fromModel(savedUser);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Optional<UserDTO> findUserById(Long id) {
         if (id == null) return Optional.empty();
         return userRepository.findByIdWithRoles(id)
                 .map(UserDTO::fromModel);
     }
 
+    // role checks for other users (AuthorizationService), so not read-only: those may be served by the replica
     @Transactional
     public Optional<UserDTO> findUserByUsername(String username) {
         if (username == null || username.isBlank()) return Optional.empty();
@@ -72,23 +84,14 @@ public class UserService  {
                 .map(UserDTO::fromModel);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<UserDTO> findAllUsers(String username) throws UserNotFoundException {
-        User loggedInUser = userRepository.findByUsernameWithRoles(username)
-                .orElseThrow(() -> new UserNotFoundException("USER_NOT_FOUND"));
-
-        if (loggedInUser.getRoles().stream().anyMatch(role -> role.getName().equalsIgnoreCase("SUPER_ADMIN"))) {
-            return userRepository.findAll().stream()
-                    .map(user -> {
-                        // Fetch each user with roles
-                        return userRepository.findByIdWithRoles(user.getId())
-                                .map(UserDTO::fromModel)
-                                .orElse(null);
-                    })
-                    .filter(Objects::nonNull)
+        if (currentUserContext.isSuperAdmin()) {
+            return userRepository.findAllWithRolesAndStore().stream()
+                    .map(UserDTO::fromModel)
                     .collect(Collectors.toList());
-        } else if (loggedInUser.getRoles().stream().anyMatch(role -> role.getName().equalsIgnoreCase("LOCAL_ADMIN"))) {
-            return userRepository.findByStoreIdWithRoles(loggedInUser.getStore().getId())
+        } else if (currentUserContext.isLocalAdmin()) {
+            return userRepository.findByStoreIdWithRoles(currentUserContext.requireScopedStoreId())
                     .stream()
                     .map(UserDTO::fromModel)
                     .collect(Collectors.toList());
@@ -97,11 +100,32 @@ public class UserService  {
         }
     }
 
+    // ids page + one fetch join for users/roles/store + one grouped order count
+    @Transactional(readOnly = true)
+    public Page<UserSummaryDTO> findUserDirectory(Long storeId, String username, Status status, String roleName,
+                                                  Pageable pageable) {
+        if (currentUserContext.isLocalAdmin() && !currentUserContext.isSuperAdmin()) {
+            storeId = currentUserContext.requireScopedStoreId();
+        } else if (!currentUserContext.isSuperAdmin()) {
+            throw new AccessDeniedException("ACCESS_DENIED");
+        }
+
+        Page<Long> ids = userRepository.findIdsByFilters(
+                storeId, username, status, roleName != null ? roleName.toUpperCase() : null, pageable);
+        if (ids.isEmpty()) {
+            return ids.map(id -> null);
+        }
+
+        Map<Long, User> users = userRepository.findAllWithRolesAndStoreByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+        Map<Long, Long> orderCounts = orderRepository.countByUserIds(ids.getContent()).stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Long) row[1]));
+
+        return ids.map(id -> UserSummaryDTO.fromModel(users.get(id), orderCounts.getOrDefault(id, 0L)));
+    }
+
     @Transactional
     public void deleteUserById(Long id) throws UserNotFoundException, AccessDeniedException, DataIntegrityViolationException {
-        User authenticatedUser = userRepository.findByUsernameWithRoles(getAuthenticatedUsername())
-                .orElseThrow(() -> new UserNotFoundException("USER_NOT_FOUND"));
-
         User userToDelete = userRepository.findByIdWithRoles(id)
                 .orElseThrow(() -> new UserNotFoundException("USER_NOT_FOUND"));
 
@@ -109,7 +133,7 @@ public class UserService  {
             throw new IllegalStateException("SYSTEM_USER_PROTECTED");
         }
 
-        if (authenticatedUser.getId().equals(userToDelete.getId())) {
+        if (userToDelete.getId().equals(currentUserContext.getUserId())) {
             throw new AccessDeniedException("CANNOT_DELETE_SELF");
         }
 
@@ -128,6 +152,8 @@ public class UserService  {
         }
 
         userRepository.deleteById(id);
+        tokenVersionRegistry.evict(userToDelete.getId());
+        dashboardCounters.userStatusChanged(userToDelete.getStatus(), null);
     }
 
     @Transactional
@@ -150,6 +176,7 @@ public class UserService  {
         user.setIsSystemEntity(true);
 
         User savedUser = userRepository.save(user);
+        dashboardCounters.userStatusChanged(null, Status.ACTIVE);
         // Fetch with roles after save
         savedUser = userRepository.findByIdWithRoles(savedUser.getId()).orElse(savedUser);
         LOGGER.info("Successfully created SUPER_ADMIN user: {}", username);
@@ -178,56 +205,49 @@ public class UserService  {
                 .collect(Collectors.toSet());
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public UserDTO getAuthenticatedUserDetails() throws UserNotFoundException {
-        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        String username;
+        String username = currentUserContext.getUsername();
 
-        if (principal instanceof UserDetails) {
-            username = ((UserDetails) principal).getUsername();
-        } else {
-            username = principal.toString();
+        UserDTO user = currentUserContext.getUserDetails(() -> userRepository.findByUsernameWithRoles(username)
+                .map(UserDTO::fromModel)
+                .orElse(null));
+        if (user == null) {
+            throw new UserNotFoundException("User not found with username: " + username);
         }
-
-        User user = userRepository.findByUsernameWithRoles(username)
-                .orElseThrow(() -> new UserNotFoundException("User not found with username: " + username));
-
-        return UserDTO.fromModel(user);
+        return user;
     }
 
     @Transactional
     public UserDTO toggleUserStatus(Long userId, Status newStatus) throws UserNotFoundException, AccessDeniedException {
-        String authenticatedUsername = getAuthenticatedUsername();
-        User authenticatedUser = userRepository.findByUsernameWithRoles(authenticatedUsername)
-                .orElseThrow(() -> new UserNotFoundException("USER_NOT_FOUND"));
-
         User userToToggle = userRepository.findByIdWithRoles(userId)
                 .orElseThrow(() -> new UserNotFoundException("USER_NOT_FOUND"));
 
-        if (authenticatedUser.getId().equals(userToToggle.getId()) && newStatus == Status.INACTIVE) {
+        if (userToToggle.getId().equals(currentUserContext.getUserId()) && newStatus == Status.INACTIVE) {
             throw new AccessDeniedException("CANNOT_DISABLE_OWN_ACCOUNT");
         }
 
         boolean targetIsSuperAdmin = userToToggle.getRoles().stream()
                 .anyMatch(role -> role.getName().equalsIgnoreCase("SUPER_ADMIN"));
-        boolean authenticatedIsSuperAdmin = authenticatedUser.getRoles().stream()
-                .anyMatch(role -> role.getName().equalsIgnoreCase("SUPER_ADMIN"));
+        boolean authenticatedIsSuperAdmin = currentUserContext.isSuperAdmin();
 
         if (targetIsSuperAdmin && !authenticatedIsSuperAdmin) {
             throw new AccessDeniedException("CANNOT_MODIFY_SUPER_ADMIN");
         }
 
-        boolean authenticatedIsLocalAdmin = authenticatedUser.getRoles().stream()
-                .anyMatch(role -> role.getName().equalsIgnoreCase("LOCAL_ADMIN"));
+        boolean authenticatedIsLocalAdmin = currentUserContext.isLocalAdmin();
 
         if (authenticatedIsLocalAdmin && !authenticatedIsSuperAdmin) {
             if (userToToggle.getStore() == null ||
-                    !userToToggle.getStore().getId().equals(authenticatedUser.getStore().getId())) {
+                    !userToToggle.getStore().getId().equals(currentUserContext.getStoreId())) {
                 throw new AccessDeniedException("CANNOT_MODIFY_OTHER_STORE_USERS");
             }
         }
 
+        dashboardCounters.userStatusChanged(userToToggle.getStatus(), newStatus);
         userToToggle.setStatus(newStatus);
+        userToToggle.nextSecurityVersion();
+        tokenVersionRegistry.evict(userToToggle.getId());
         LOGGER.info("Changed user status for user ID {}: {}", userId, newStatus);
 
         User savedUser = userRepository.save(userToToggle);
@@ -255,10 +275,12 @@ public class UserService  {
 
         user.getRoles().clear();
         user.getRoles().add(role);
+        user.nextSecurityVersion();
         userRepository.save(user);
+        tokenVersionRegistry.evict(user.getId());
     }
 
     public boolean isSetupRequired() {
-        return userRepository.count() == 0;
+        return !setupState.isCompleted();
     }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package gr.clothesmanager.service.exceptions;
+
+import java.util.List;
+
+public class BulkOrderRejectedException extends RuntimeException {
+
+    // line is the index in the request, available is null when the material does not exist
+    public record LineError(int line, Long materialId, int requested, Integer available, String code) {
+    }
+
+    private final List<LineError> lines;
+
+    public BulkOrderRejectedException(List<LineError> lines) {
+        super("BULK_ORDER_REJECTED");
+        this.lines = lines;
+    }
+
+    public List<LineError> getLines() {
+        return lines;
+    }
+}
@@ -28,3 +28,37 @@ VALUES (1, 1), (2, 2);
 INSERT IGNORE INTO materials (id, quantity, text, size_id, store_id)
 VALUES (1, 1, 'Μπλούζα', 3, 1);
 
+-- Pooled id blocks (allocationSize 50) for entities created in bulk.
+-- Hibernate creates each segment row at 1 together with the table, so raise it (never lower it)
+-- above the current max id: rows created with AUTO_INCREMENT or seeded above keep their ids.
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT * FROM (SELECT 'materials' AS segment, COALESCE(MAX(id), 0) + 50 AS floor_val FROM materials) AS seed
+ON DUPLICATE KEY UPDATE next_val = GREATEST(id_generators.next_val, seed.floor_val);
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT * FROM (SELECT 'orders' AS segment, COALESCE(MAX(id), 0) + 50 AS floor_val FROM orders) AS seed
+ON DUPLICATE KEY UPDATE next_val = GREATEST(id_generators.next_val, seed.floor_val);
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT * FROM (SELECT 'material_stock_stripes' AS segment, COALESCE(MAX(id), 0) + 50 AS floor_val FROM material_stock_stripes) AS seed
+ON DUPLICATE KEY UPDATE next_val = GREATEST(id_generators.next_val, seed.floor_val);
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT * FROM (SELECT 'order_headers' AS segment, COALESCE(MAX(id), 0) + 50 AS floor_val FROM order_headers) AS seed
+ON DUPLICATE KEY UPDATE next_val = GREATEST(id_generators.next_val, seed.floor_val);
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT * FROM (SELECT 'stock_movements' AS segment, COALESCE(MAX(id), 0) + 50 AS floor_val FROM stock_movements) AS seed
+ON DUPLICATE KEY UPDATE next_val = GREATEST(id_generators.next_val, seed.floor_val);
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT * FROM (SELECT 'stock_snapshots' AS segment, COALESCE(MAX(id), 0) + 50 AS floor_val FROM stock_snapshots) AS seed
+ON DUPLICATE KEY UPDATE next_val = GREATEST(id_generators.next_val, seed.floor_val);
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT * FROM (SELECT 'stock_reservations' AS segment, COALESCE(MAX(id), 0) + 50 AS floor_val FROM stock_reservations) AS seed
+ON DUPLICATE KEY UPDATE next_val = GREATEST(id_generators.next_val, seed.floor_val);
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT * FROM (SELECT 'stock_level_rules' AS segment, COALESCE(MAX(id), 0) + 50 AS floor_val FROM stock_level_rules) AS seed
+ON DUPLICATE KEY UPDATE next_val = GREATEST(id_generators.next_val, seed.floor_val);
@@ -0,0 +1,127 @@
+package gr.clothesmanager.auth;
+
+import gr.clothesmanager.core.enums.Status;
+import gr.clothesmanager.model.Store;
+import gr.clothesmanager.model.User;
+import gr.clothesmanager.model.UserRole;
+import gr.clothesmanager.repository.UserRepository;
+import gr.clothesmanager.security.JwtPrincipal;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-request statement counts of the current user lookup, on the embedded H2 database.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+public class CurrentUserContextTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should resolve a JWT principal without touching the database")
+    public void shouldResolveJwtPrincipalWithoutQueries() {
+        authenticate(new JwtPrincipal(1L, "local", 7L, List.of("LOCAL_ADMIN")));
+        CurrentUserContext context = new CurrentUserContext(userRepository);
+
+        statistics.clear();
+        serveRequest(context);
+
+        Assertions.assertThat(context.requireScopedStoreId()).isEqualTo(7L);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should load a non-JWT user once per request")
+    public void shouldLoadFallbackUserOnce() {
+        Store store = persist(Store.builder().title("Κεντρικό").address("Αθήνα").status(Status.ACTIVE).build());
+        persistUser("local", store);
+        authenticate("local");
+        CurrentUserContext context = new CurrentUserContext(userRepository);
+
+        statistics.clear();
+        serveRequest(context);
+
+        Assertions.assertThat(context.requireScopedStoreId()).isEqualTo(store.getId());
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should refuse a store-less local admin instead of scoping to every store")
+    public void shouldRefuseUserWithoutStore() {
+        persistUser("orphan", null);
+        authenticate("orphan");
+        CurrentUserContext context = new CurrentUserContext(userRepository);
+
+        Assertions.assertThat(context.isSuperAdmin()).isFalse();
+        Assertions.assertThat(context.getStoreId()).isNull();
+        Assertions.assertThatThrownBy(context::requireScopedStoreId)
+                .isInstanceOf(AccessDeniedException.class)
+                .hasMessage("ACCESS_DENIED");
+    }
+
+    // what a scoped service call does with the context during one request
+    private void serveRequest(CurrentUserContext context) {
+        for (int i = 0; i < 5; i++) {
+            context.isSuperAdmin();
+            context.isLocalAdmin();
+            context.getUserId();
+            context.getStoreId();
+        }
+    }
+
+    private void persistUser(String username, Store store) {
+        UserRole role = persist(UserRole.builder().name("LOCAL_ADMIN").tag("local-admin").build());
+        persist(User.builder()
+                .username(username)
+                .password("secret")
+                .status(Status.ACTIVE)
+                .isSystemEntity(false)
+                .roles(Set.of(role))
+                .store(store)
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private void authenticate(Object principal) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+}
@@ -5,6 +5,7 @@ public class TestConstants {
     public static final String BASE_URL = "http://localhost:3000";
     public static final String LOGIN_URL = BASE_URL + "/login";
     public static final String DASHBOARD_URL = BASE_URL + "/dashboard";
+    public static final String API_URL = "http://localhost:8080";
 
     public static final String ADMIN_USERNAME = "admin";
     public static final String ADMIN_PASSWORD = "Admin!1234";
@@ -0,0 +1,131 @@
+package gr.clothesmanager.core.datasource;
+
+import org.assertj.core.api.Assertions;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Routing between two embedded H2 databases, each holding a marker row with its own name.
+ */
+public class ReadWriteRoutingDataSourceTests {
+
+    private DataSource primary;
+    private FailingDataSource replica;
+    private ReplicaHealth health;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    public void setUp() {
+        primary = database("primary");
+        replica = new FailingDataSource(database("replica"));
+        route("");
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to a healthy replica and everything else to the primary")
+    public void shouldRouteReadOnlyToReplica() {
+        health.check();
+
+        Assertions.assertThat(readOnlyServer()).isEqualTo("replica");
+        Assertions.assertThat(readWriteServer()).isEqualTo("primary");
+        Assertions.assertThat(server()).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Should read from the primary until the replica has passed a health check")
+    public void shouldUsePrimaryBeforeFirstCheck() {
+        Assertions.assertThat(readOnlyServer()).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Should take a lagging replica out of rotation")
+    public void shouldSkipLaggingReplica() {
+        route("SELECT 45 AS Seconds_Behind_Source");
+        health.check();
+        Assertions.assertThat(health.isUsable()).isFalse();
+        Assertions.assertThat(readOnlyServer()).isEqualTo("primary");
+
+        route("SELECT 5 AS Seconds_Behind_Source");
+        health.check();
+        Assertions.assertThat(readOnlyServer()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary when the replica refuses connections")
+    public void shouldFallBackWhenReplicaFails() {
+        health.check();
+        replica.failing = true;
+
+        Assertions.assertThat(readOnlyServer()).isEqualTo("primary");
+        Assertions.assertThat(health.isUsable()).isFalse();
+
+        replica.failing = false;
+        health.check();
+        Assertions.assertThat(readOnlyServer()).isEqualTo("replica");
+    }
+
+    // routing as DataSourceRoutingConfiguration wires it, with a 30 second lag limit
+    private void route(String lagQuery) {
+        health = new ReplicaHealth(replica, lagQuery, "Seconds_Behind_Source", 30);
+        DataSource routing = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, health));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        jdbcTemplate = new JdbcTemplate(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    private String readOnlyServer() {
+        return readOnly.execute(status -> server());
+    }
+
+    private String readWriteServer() {
+        return readWrite.execute(status -> server());
+    }
+
+    private String server() {
+        return jdbcTemplate.queryForObject("SELECT name FROM server", String.class);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE server (name VARCHAR(20))");
+        jdbc.update("INSERT INTO server (name) VALUES (?)", name);
+        return dataSource;
+    }
+
+    // a replica whose connections can be switched off
+    private static class FailingDataSource extends DelegatingDataSource {
+
+        private volatile boolean failing;
+
+        FailingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (failing) {
+                throw new SQLException("Connection refused");
+            }
+            return super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package gr.clothesmanager.repository;
+
+import gr.clothesmanager.core.enums.Status;
+import gr.clothesmanager.model.Material;
+import gr.clothesmanager.model.Size;
+import gr.clothesmanager.model.Store;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Id reservation and the MySQL guard on the embedded H2 database. The upsert statements themselves
+ * are MySQL-only and are not run here.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+public class MaterialUpsertRepositoryTests {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate jdbcTemplate;
+    private MaterialUpsertRepository repository;
+    private Size size;
+    private Store store;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new MaterialUpsertRepository(jdbcTemplate, transactionManager);
+
+        size = new Size();
+        size.setName("M");
+        entityManager.persist(size);
+        store = Store.builder().title("Κεντρικό").address("Αθήνα").status(Status.ACTIVE).build();
+        entityManager.persist(store);
+    }
+
+    @Test
+    @DisplayName("Should reserve ids apart from the ones entity inserts take")
+    public void shouldReserveIdsApartFromEntityInserts() {
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(persistMaterial("Μπλούζα " + i));
+        }
+
+        long single = repository.reserveIds(1);
+        long range = repository.reserveIds(60);
+        Assertions.assertThat(ids.add(single)).isTrue();
+        for (long id = range; id < range + 60; id++) {
+            Assertions.assertThat(ids.add(id)).as("reserved id %d", id).isTrue();
+        }
+
+        for (int i = 3; i < 120; i++) {
+            long id = persistMaterial("Μπλούζα " + i);
+            Assertions.assertThat(ids.add(id)).as("entity id %d", id).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse the upsert on a database other than MySQL 8.0.19+")
+    public void shouldRefuseUpsertOutsideMySql() {
+        Boolean supported = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                MaterialUpsertRepository.supportsRowAlias(connection.getMetaData()));
+
+        Assertions.assertThat(supported).isFalse();
+        Assertions.assertThatThrownBy(() -> repository.addQuantity("Μπλούζα", store.getId(), size.getId(), 5))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private long persistMaterial(String text) {
+        Material material = new Material(text, 1, size, store);
+        entityManager.persist(material);
+        return material.getId();
+    }
+}
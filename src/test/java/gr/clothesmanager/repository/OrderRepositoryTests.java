@@ -0,0 +1,117 @@
+package gr.clothesmanager.repository;
+
+import gr.clothesmanager.core.enums.OrderStatus;
+import gr.clothesmanager.core.enums.Status;
+import gr.clothesmanager.dto.OrderDTO;
+import gr.clothesmanager.dto.OrderView;
+import gr.clothesmanager.model.*;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Statement counts of the order list reads on the embedded H2 database: a page is one select plus
+ * one count however many orders, stores and users it shows.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+public class OrderRepositoryTests {
+
+    private static final int ORDERS = 45;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private Store firstStore;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        Size size = persist(new Size("M"));
+        firstStore = persist(Store.builder().title("Κεντρικά").address("Αθήνα").status(Status.ACTIVE).build());
+        Store secondStore = persist(Store.builder().title("Δυτικά").address("Πάτρα").status(Status.ACTIVE).build());
+        UserRole role = persist(UserRole.builder().name("LOCAL_ADMIN").tag("local-admin").build());
+
+        for (int i = 0; i < ORDERS; i++) {
+            Store store = i % 2 == 0 ? firstStore : secondStore;
+            User user = persist(User.builder()
+                    .username("user" + i)
+                    .password("secret")
+                    .status(Status.ACTIVE)
+                    .isSystemEntity(false)
+                    .roles(Set.of(role))
+                    .store(store)
+                    .build());
+            Material material = persist(new Material("Μπλούζα " + i, 10, size, store));
+            Order order = new Order(null, Date.valueOf(LocalDate.of(2026, 3, 2)), OrderStatus.PENDING,
+                    material, size, store, user);
+            order.setQuantity(1);
+            persist(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should load an order page with one select and one count")
+    public void shouldLoadPageWithSelectAndCount() {
+        for (int page = 0; page < 2; page++) {
+            statistics.clear();
+
+            Page<OrderView> orders = orderRepository.findAllByFilters(null, null, null, null,
+                    PageRequest.of(page, 20, Sort.by("id")));
+            List<OrderDTO> dtos = orders.map(OrderDTO::fromView).getContent();
+
+            Assertions.assertThat(dtos).hasSize(20);
+            Assertions.assertThat(dtos).allSatisfy(order -> {
+                Assertions.assertThat(order.getStore().getTitle()).isNotNull();
+                Assertions.assertThat(order.getUser().getStore().getTitle()).isNotNull();
+            });
+            Assertions.assertThat(orders.getTotalElements()).isEqualTo(ORDERS);
+            Assertions.assertThat(statistics.getPrepareStatementCount()).as("page %d", page).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Should load a filtered page and a keyset page without extra statements")
+    public void shouldLoadFilteredAndKeysetPages() {
+        statistics.clear();
+        Page<OrderView> storeOrders = orderRepository.findAllByFilters(firstStore.getId(), null, "μπλουζα", null,
+                PageRequest.of(0, 10, Sort.by("id")));
+        storeOrders.map(OrderDTO::fromView);
+        Assertions.assertThat(storeOrders.getTotalElements()).isEqualTo((ORDERS + 1) / 2);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        statistics.clear();
+        List<OrderView> next = orderRepository.findNextByFilters(null, null, null, null, Limit.of(21));
+        next.forEach(OrderDTO::fromView);
+        Assertions.assertThat(next).hasSize(21);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+}
@@ -0,0 +1,123 @@
+package gr.clothesmanager.repository;
+
+import gr.clothesmanager.core.datasource.ReadWriteRoutingDataSource;
+import gr.clothesmanager.core.datasource.ReplicaHealth;
+import gr.clothesmanager.model.User;
+import gr.clothesmanager.model.UserRole;
+import org.assertj.core.api.Assertions;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Auth-critical user reads against a primary and a lagging replica, two embedded H2 databases.
+ * The replica still has the user before a password change (version 2) and a role change.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserRepositoryRoutingTests {
+
+    private static final DataSource PRIMARY = database("primary");
+    private static final DataSource REPLICA = database("replica");
+    private static final ReplicaHealth HEALTH = new ReplicaHealth(REPLICA, "", "Seconds_Behind_Source", 30);
+
+    @TestConfiguration
+    static class RoutingConfiguration {
+
+        @Bean
+        DataSource dataSource() {
+            return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(PRIMARY, REPLICA, HEALTH));
+        }
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final JdbcTemplate primary = new JdbcTemplate(PRIMARY);
+    private final JdbcTemplate replica = new JdbcTemplate(REPLICA);
+
+    @BeforeEach
+    public void setUp() {
+        // primary schema comes from Hibernate, the replica gets the columns these queries read
+        replica.execute("CREATE TABLE IF NOT EXISTS users (id BIGINT PRIMARY KEY, password VARCHAR(255), " +
+                "username VARCHAR(50), status VARCHAR(20), is_system_entity BOOLEAN, security_version INT, store_id BIGINT)");
+        replica.execute("CREATE TABLE IF NOT EXISTS roles (id BIGINT PRIMARY KEY, name VARCHAR(255), tag VARCHAR(255), " +
+                "created_at TIMESTAMP, updated_at TIMESTAMP)");
+        replica.execute("CREATE TABLE IF NOT EXISTS user_roles (user_id BIGINT, role_id BIGINT)");
+
+        for (JdbcTemplate database : List.of(primary, replica)) {
+            database.update("INSERT INTO roles (id, name, tag) VALUES (1, 'SUPER_ADMIN', 'super-admin'), (2, 'LOCAL_ADMIN', 'local-admin')");
+        }
+        primary.update("INSERT INTO users (id, username, status, is_system_entity, security_version) VALUES (1, 'maria', 'ACTIVE', FALSE, 3)");
+        primary.update("INSERT INTO user_roles (user_id, role_id) VALUES (1, 2)");
+        replica.update("INSERT INTO users (id, username, status, is_system_entity, security_version) VALUES (1, 'maria', 'ACTIVE', FALSE, 2)");
+        replica.update("INSERT INTO user_roles (user_id, role_id) VALUES (1, 1)");
+
+        HEALTH.check();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        for (JdbcTemplate database : List.of(primary, replica)) {
+            database.update("DELETE FROM user_roles");
+            database.update("DELETE FROM users");
+            database.update("DELETE FROM roles");
+        }
+    }
+
+    @Test
+    @DisplayName("Should read the security version from the primary, even inside a read-only transaction")
+    public void shouldReadSecurityVersionFromPrimary() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // inherited repository reads are read-only and served by the replica
+        Assertions.assertThat(userRepository.findById(1L)).map(User::getSecurityVersion).contains(2);
+
+        Assertions.assertThat(securityVersion(userRepository.findUsernameAndSecurityVersionById(1L))).isEqualTo(3);
+        Integer insideReadOnly = readOnly.execute(status ->
+                securityVersion(userRepository.findUsernameAndSecurityVersionById(1L)));
+        Assertions.assertThat(insideReadOnly).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should read the roles used for login and authorization from the primary")
+    public void shouldReadRolesFromPrimary() {
+        // declared queries get no default transaction, so outside a service transaction they use the primary
+        User user = userRepository.findByUsernameWithRoles("maria").orElseThrow();
+
+        Assertions.assertThat(user.getRoles()).extracting(UserRole::getName).containsExactly("LOCAL_ADMIN");
+    }
+
+    private static int securityVersion(List<Object[]> rows) {
+        return ((Number) rows.get(0)[1]).intValue();
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:users-" + name + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
@@ -0,0 +1,121 @@
+package gr.clothesmanager.service;
+
+import gr.clothesmanager.dto.ReplenishmentPlanDTO;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Planner-only tests over synthetic arrays, no database or browser needed.
+ * The benchmark runs with -Pperf, sized with -Dreplenishment.stores / -Dreplenishment.skus (default 500 x 2000).
+ */
+public class ReplenishmentPlannerTests {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplenishmentPlannerTests.class);
+
+    private static final int STORES = Integer.getInteger("replenishment.stores", 500);
+    private static final int SKUS = Integer.getInteger("replenishment.skus", 2000);
+
+    @Test
+    @DisplayName("Should serve the most urgent shortage from the largest surplus")
+    public void shouldServeMostUrgentShortageFirst() {
+        List<ReplenishmentPlanner.Sku> skus = List.of(new ReplenishmentPlanner.Sku("μπλουζα", 3L));
+        List<String> texts = List.of("Μπλούζα");
+
+        // min 5, max 10: store 1 has 30 (gives 20), store 2 has 0 (needs 10), store 3 has 4 (needs 6),
+        // store 4 has 2 (needs 8); by urgency 2, 4, then 3 gets what is left
+        List<ReplenishmentPlanner.StoreLevels> stores = List.of(
+                store(1L, 101L, 30), store(2L, 102L, 0), store(3L, 103L, 4), store(4L, 104L, 2));
+
+        ReplenishmentPlanner.Plan plan = ReplenishmentPlanner.plan(stores, skus, texts);
+
+        Assertions.assertThat(plan.transfers()).extracting(ReplenishmentPlanDTO.Transfer::getTargetStoreId,
+                        ReplenishmentPlanDTO.Transfer::getQuantity)
+                .containsExactly(Assertions.tuple(2L, 10), Assertions.tuple(3L, 2), Assertions.tuple(4L, 8));
+        Assertions.assertThat(plan.unmet()).extracting(ReplenishmentPlanDTO.Shortage::getStoreId,
+                        ReplenishmentPlanDTO.Shortage::getQuantity)
+                .containsExactly(Assertions.tuple(3L, 4));
+    }
+
+    @Test
+    @DisplayName("Should keep every transfer within the source surplus")
+    public void shouldStayWithinSurplus() {
+        Network network = network(20, 50);
+
+        ReplenishmentPlanner.Plan plan = ReplenishmentPlanner.plan(network.stores, network.skus, network.texts);
+
+        assertWithinSurplus(plan, network.surplusByMaterial);
+    }
+
+    @Test
+    @Tag("perf")
+    @DisplayName("Should plan a large synthetic network")
+    public void shouldPlanLargeNetwork() {
+        Network network = network(STORES, SKUS);
+
+        long started = System.nanoTime();
+        ReplenishmentPlanner.Plan plan = ReplenishmentPlanner.plan(network.stores, network.skus, network.texts);
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        LOGGER.info("Planned {} stores x {} skus: {} transfers, {} unmet in {} ms",
+                STORES, SKUS, plan.transfers().size(), plan.unmet().size(), elapsedMs);
+
+        assertWithinSurplus(plan, network.surplusByMaterial);
+    }
+
+    private static void assertWithinSurplus(ReplenishmentPlanner.Plan plan, Map<Long, Integer> surplusByMaterial) {
+        Map<Long, Integer> given = new HashMap<>();
+        plan.transfers().forEach(transfer -> given.merge(transfer.getSourceMaterialId(), transfer.getQuantity(), Integer::sum));
+        given.forEach((source, quantity) ->
+                Assertions.assertThat(quantity).isLessThanOrEqualTo(surplusByMaterial.getOrDefault(source, 0)));
+        Assertions.assertThat(plan.transfers()).isNotEmpty();
+    }
+
+    private record Network(List<ReplenishmentPlanner.StoreLevels> stores, List<ReplenishmentPlanner.Sku> skus,
+                           List<String> texts, Map<Long, Integer> surplusByMaterial) {
+    }
+
+    // every store has a min 5 / max 20 rule per sku and a random stock of 0..29
+    private static Network network(int storeCount, int skuCount) {
+        Random random = new Random(42);
+        List<ReplenishmentPlanner.Sku> skus = new ArrayList<>(skuCount);
+        List<String> texts = new ArrayList<>(skuCount);
+        for (int i = 0; i < skuCount; i++) {
+            skus.add(new ReplenishmentPlanner.Sku("item " + i, (long) (i % 5 + 1)));
+            texts.add("Item " + i);
+        }
+
+        List<ReplenishmentPlanner.StoreLevels> stores = new ArrayList<>(storeCount);
+        Map<Long, Integer> surplusByMaterial = new HashMap<>();
+        long materialId = 1;
+        for (long storeId = 1; storeId <= storeCount; storeId++) {
+            List<int[]> rules = new ArrayList<>(skuCount);
+            for (int sku = 0; sku < skuCount; sku++) {
+                rules.add(new int[]{sku, 5, 20});
+            }
+            ReplenishmentPlanner.StoreLevels store = new ReplenishmentPlanner.StoreLevels(storeId, rules);
+            for (int sku = 0; sku < skuCount; sku++) {
+                int stock = random.nextInt(30);
+                store.setStock(sku, materialId, stock);
+                if (stock > 20) {
+                    surplusByMaterial.put(materialId, stock - 20);
+                }
+                materialId++;
+            }
+            stores.add(store);
+        }
+        return new Network(stores, skus, texts, surplusByMaterial);
+    }
+
+    private static ReplenishmentPlanner.StoreLevels store(Long storeId, Long materialId, int stock) {
+        List<int[]> rules = new ArrayList<>();
+        rules.add(new int[]{0, 5, 10});
+        ReplenishmentPlanner.StoreLevels store = new ReplenishmentPlanner.StoreLevels(storeId, rules);
+        store.setStock(0, materialId, stock);
+        return store;
+    }
+}
@@ -0,0 +1,76 @@
+package gr.clothesmanager.service;
+
+import gr.clothesmanager.dto.SizeDTO;
+import gr.clothesmanager.model.Size;
+import gr.clothesmanager.repository.SizeRepository;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Size registry on the embedded H2 database: unknown ids reload the table at most once per interval,
+ * and callers get copies they cannot use to change the cached sizes.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+public class SizeRegistryTests {
+
+    @Autowired
+    private SizeRepository sizeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private SizeRegistry registry;
+    private Statistics statistics;
+    private Long smallId;
+
+    @BeforeEach
+    public void setUp() {
+        smallId = sizeRepository.save(new Size("S")).getId();
+        sizeRepository.save(new Size("M"));
+        entityManager.flush();
+
+        registry = new SizeRegistry(sizeRepository);
+        ReflectionTestUtils.setField(registry, "missReloadIntervalMillis", 60_000L);
+        registry.load();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Unknown ids do not reload the table within the interval")
+    public void shouldNotReloadOnEveryMiss() {
+        for (long id = 1_000; id < 1_100; id++) {
+            Assertions.assertThat(registry.findById(id)).isEmpty();
+        }
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        ReflectionTestUtils.setField(registry, "missReloadIntervalMillis", 0L);
+        Long largeId = sizeRepository.save(new Size("L")).getId();
+        entityManager.flush();
+        statistics.clear();
+
+        Assertions.assertThat(registry.findById(largeId)).map(SizeDTO::getName).contains("L");
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Returned sizes are copies of the cached ones")
+    public void shouldHandOutCopies() {
+        registry.findById(smallId).orElseThrow().setName("changed");
+        registry.findAll().forEach(size -> size.setMaterialCount(5L));
+
+        Assertions.assertThat(registry.findById(smallId)).map(SizeDTO::getName).contains("S");
+        Assertions.assertThat(registry.findAll()).extracting(SizeDTO::getMaterialCount).containsOnlyNulls();
+    }
+}
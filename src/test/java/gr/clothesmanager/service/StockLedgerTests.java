@@ -0,0 +1,129 @@
+package gr.clothesmanager.service;
+
+import gr.clothesmanager.core.enums.MovementType;
+import gr.clothesmanager.dto.StockLevelDTO;
+import gr.clothesmanager.model.StockMovement;
+import gr.clothesmanager.model.StockSnapshot;
+import gr.clothesmanager.repository.MaterialRepository;
+import gr.clothesmanager.repository.StockMovementRepository;
+import gr.clothesmanager.repository.StockSnapshotRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * As-of stock from snapshots and marked movements on the embedded H2 database, checked against a plain
+ * sum of the movements. Three snapshot runs, with two late commits picked up by a later run than their
+ * time says.
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+public class StockLedgerTests {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2026, 3, 2);
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private StockSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    private StockLedger ledger;
+    private final List<StockMovement> movements = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        ledger = new StockLedger(movementRepository, snapshotRepository, materialRepository);
+
+        Instant run1 = time(DAY_1.plusDays(1), 0, 15);
+        Instant run2 = time(DAY_1.plusDays(2), 0, 15);
+        Instant run3 = time(DAY_1.plusDays(3), 0, 15);
+
+        movement(1L, 1L, 10, time(DAY_1, 10, 0), run1);
+        movement(2L, 1L, 5, time(DAY_1, 10, 0), run1);
+        movement(2L, 1L, 1, time(DAY_1, 20, 0), run3);                 // late: committed after runs 1 and 2
+        movement(1L, 1L, -3, time(DAY_1.plusDays(1), 9, 0), run2);
+        movement(1L, 1L, -1, time(DAY_1.plusDays(1), 23, 0), run3);    // late: committed after run 2
+        movement(3L, 2L, 4, time(DAY_1.plusDays(1), 12, 0), run2);
+        movement(2L, 1L, 2, time(DAY_1.plusDays(2), 8, 0), run3);
+        movement(1L, 1L, 4, time(DAY_1.plusDays(3), 10, 0), null);     // not picked up yet
+        movementRepository.saveAll(movements);
+
+        snapshot(run1, Map.of(1L, 10, 2L, 5));
+        snapshot(run2, Map.of(1L, 7, 2L, 5, 3L, 4));
+        snapshot(run3, Map.of(1L, 6, 2L, 8, 3L, 4));
+    }
+
+    @Test
+    @DisplayName("Should match the plain movement sum on every day, before, between and after the snapshots")
+    public void shouldMatchMovementSum() {
+        for (int day = -1; day <= 4; day++) {
+            LocalDate date = DAY_1.plusDays(day);
+            Assertions.assertThat(levels(ledger.stockAsOf(date, null))).as("as of %s", date).isEqualTo(expected(date, null));
+            Assertions.assertThat(levels(ledger.stockAsOf(date, 1L))).as("store 1 as of %s", date).isEqualTo(expected(date, 1L));
+        }
+    }
+
+    @Test
+    @DisplayName("Should count a late commit on the day it happened")
+    public void shouldCountLateCommits() {
+        Assertions.assertThat(levels(ledger.stockAsOf(DAY_1, null))).isEqualTo(Map.of(1L, 10, 2L, 6));
+        Assertions.assertThat(levels(ledger.stockAsOf(DAY_1.plusDays(1), null))).isEqualTo(Map.of(1L, 6, 2L, 6, 3L, 4));
+    }
+
+    private Map<Long, Integer> expected(LocalDate date, Long storeId) {
+        Instant at = time(date.plusDays(1), 0, 0);
+        return movements.stream()
+                .filter(movement -> movement.getOccurredAt().isBefore(at))
+                .filter(movement -> storeId == null || storeId.equals(movement.getStoreId()))
+                .collect(Collectors.groupingBy(StockMovement::getMaterialId, TreeMap::new,
+                        Collectors.summingInt(StockMovement::getDelta)))
+                .entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private static Map<Long, Integer> levels(List<StockLevelDTO> levels) {
+        return levels.stream().collect(Collectors.toMap(StockLevelDTO::getMaterialId, StockLevelDTO::getQuantity));
+    }
+
+    private void movement(Long materialId, Long storeId, int delta, Instant occurredAt, Instant snapshotAt) {
+        movements.add(StockMovement.builder()
+                .materialId(materialId)
+                .storeId(storeId)
+                .type(MovementType.ADJUST)
+                .delta(delta)
+                .occurredAt(occurredAt)
+                .snapshotAt(snapshotAt)
+                .build());
+    }
+
+    private void snapshot(Instant takenAt, Map<Long, Integer> quantities) {
+        quantities.forEach((materialId, quantity) -> snapshotRepository.save(StockSnapshot.builder()
+                .takenAt(takenAt)
+                .materialId(materialId)
+                .storeId(materialId == 3L ? 2L : 1L)
+                .quantity(quantity)
+                .build()));
+    }
+
+    private static Instant time(LocalDate date, int hour, int minute) {
+        return date.atTime(hour, minute).atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
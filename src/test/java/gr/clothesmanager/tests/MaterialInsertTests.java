@@ -0,0 +1,144 @@
+package gr.clothesmanager.tests;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.microsoft.playwright.APIRequest;
+import com.microsoft.playwright.APIRequestContext;
+import com.microsoft.playwright.APIResponse;
+import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.options.RequestOptions;
+import gr.clothesmanager.constants.TestConstants;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * API tests for material inserts against an already initialised database:
+ * materials created after a restart must not collide with the seeded / existing ids,
+ * and a bulk import is timed (-Pperf, -Dmaterials.insert.rows, default 100000).
+ * Every material created here is deleted again.
+ */
+public class MaterialInsertTests {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MaterialInsertTests.class);
+    private static final int ROWS = Integer.getInteger("materials.insert.rows", 100_000);
+
+    private static Playwright playwright;
+    private static APIRequestContext api;
+    private static List<Long> sizeIds;
+    private static long storeId;
+
+    @BeforeAll
+    static void login() {
+        playwright = Playwright.create();
+        APIRequestContext anonymous = playwright.request().newContext(
+                new APIRequest.NewContextOptions().setBaseURL(TestConstants.API_URL));
+        APIResponse response = anonymous.post("/api/auth/login", RequestOptions.create().setData(Map.of(
+                "username", TestConstants.ADMIN_USERNAME,
+                "password", TestConstants.ADMIN_PASSWORD)));
+        Assertions.assertThat(response.ok()).isTrue();
+        String token = json(response).get("token").getAsString();
+        anonymous.dispose();
+
+        api = playwright.request().newContext(new APIRequest.NewContextOptions()
+                .setBaseURL(TestConstants.API_URL)
+                .setExtraHTTPHeaders(Map.of("Authorization", "Bearer " + token)));
+
+        sizeIds = ids(api.get("/api/sizes"));
+        List<Long> storeIds = ids(api.get("/api/stores"));
+        Assertions.assertThat(sizeIds).isNotEmpty();
+        Assertions.assertThat(storeIds).isNotEmpty();
+        storeId = storeIds.get(0);
+    }
+
+    @AfterAll
+    static void close() {
+        api.dispose();
+        playwright.close();
+    }
+
+    @Test
+    @DisplayName("Should create materials after startup without id collisions")
+    public void shouldCreateMaterialsAfterStartup() {
+        String prefix = TestConstants.uniqueMaterialName("Μπλούζα");
+        long previousId = 0;
+        try {
+            for (int i = 0; i < 3; i++) {
+                APIResponse response = api.post("/api/materials", RequestOptions.create().setData(Map.of(
+                        "text", prefix + "_" + i,
+                        "quantity", 10,
+                        "sizeId", sizeIds.get(0),
+                        "storeId", storeId)));
+
+                Assertions.assertThat(response.status()).isEqualTo(201);
+                long id = json(response).get("id").getAsLong();
+                Assertions.assertThat(id).isGreaterThan(previousId);
+                previousId = id;
+            }
+        } finally {
+            deleteMaterials(prefix);
+        }
+    }
+
+    @Test
+    @Tag("perf")
+    @DisplayName("Should bulk import materials")
+    public void shouldBulkImportMaterials() {
+        String prefix = TestConstants.uniqueMaterialName("Import");
+        StringBuilder csv = new StringBuilder("text,quantity,sizeId,storeId\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append(prefix).append('_').append(i).append(",5,")
+                    .append(sizeIds.get(i % sizeIds.size())).append(',').append(storeId).append('\n');
+        }
+
+        try {
+            long start = System.nanoTime();
+            APIResponse response = api.post("/api/materials/import?format=csv&mode=ADD", RequestOptions.create()
+                    .setHeader("Content-Type", "text/csv")
+                    .setData(csv.toString())
+                    .setTimeout(600_000));
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            Assertions.assertThat(response.ok()).isTrue();
+            JsonObject report = json(response);
+            Assertions.assertThat(report.get("created").getAsLong()).isEqualTo(ROWS);
+            Assertions.assertThat(report.get("failed").getAsLong()).isZero();
+            LOGGER.info("Imported {} materials in {} ms ({} rows/s)", ROWS, elapsedMs, ROWS * 1000L / Math.max(elapsedMs, 1));
+        } finally {
+            int deleted = deleteMaterials(prefix);
+            LOGGER.info("Removed {} imported materials", deleted);
+        }
+    }
+
+    // removes everything whose text starts with the given unique prefix and checks nothing is left
+    private static int deleteMaterials(String prefix) {
+        List<Long> ids = ids(api.get("/api/materials", RequestOptions.create().setQueryParam("text", prefix)));
+        for (Long id : ids) {
+            Assertions.assertThat(api.delete("/api/materials/" + id).ok()).isTrue();
+        }
+        Assertions.assertThat(ids(api.get("/api/materials", RequestOptions.create().setQueryParam("text", prefix))))
+                .isEmpty();
+        return ids.size();
+    }
+
+    private static List<Long> ids(APIResponse response) {
+        Assertions.assertThat(response.ok()).isTrue();
+        JsonArray array = JsonParser.parseString(response.text()).getAsJsonArray();
+        List<Long> ids = new ArrayList<>(array.size());
+        for (JsonElement element : array) {
+            ids.add(element.getAsJsonObject().get("id").getAsLong());
+        }
+        return ids;
+    }
+
+    private static JsonObject json(APIResponse response) {
+        return JsonParser.parseString(response.text()).getAsJsonObject();
+    }
+}